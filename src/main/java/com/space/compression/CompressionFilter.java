@@ -0,0 +1,385 @@
+package com.space.compression;
+
+import com.space.metrics.CompressionMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses text and JSON responses with gzip, or deflate when the client prefers it, as negotiated by
+ * {@code Accept-Encoding}. The first {@code minSize} bytes of a body are held back: a body that ends before that goes
+ * out as it is, a longer one is compressed while it is written, so a streamed body is never buffered whole.
+ * Responses that already carry a {@code Content-Encoding} pass through. A compressed body is a representation of its
+ * own, so its strong {@code ETag} gets the coding appended, and conditional requests naming such a tag are matched by
+ * the tag it was made from.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+    private static final int BUFFER_SIZE = 8192;
+    private static final Pattern CODED_TAG = Pattern.compile("-(gzip|deflate)\"");
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final CompressionMetrics metrics;
+
+    public CompressionFilter(boolean enabled, int minSize, int level, CompressionMetrics metrics) {
+        if (minSize < 0) throw new IllegalArgumentException("Negative compression threshold " + minSize);
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Compression level out of range: " + level);
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CodedTagsRequest coded = new CodedTagsRequest(request);
+        CompressingResponse compressing = new CompressingResponse(response, negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING)));
+        try {
+            chain.doFilter(coded, compressing);
+            // a 304 answers for the representation the client holds, compressed or not
+            if (compressing.getStatus() == HttpServletResponse.SC_NOT_MODIFIED && coded.coding != null) compressing.tagCoding(coded.coding);
+            compressing.finish();
+        } finally {
+            // when the chain or the client fails mid-body the deflater's native memory is not left to the finalizer
+            compressing.release();
+        }
+    }
+
+    /**
+     * The coding to use for an {@code Accept-Encoding} header: gzip, deflate or {@code null} for none. Ties go to gzip.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (!parameter.startsWith("q=")) continue;
+                try {
+                    q = Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    q = 0;
+                }
+            }
+            if ("gzip".equals(coding) || "x-gzip".equals(coding)) gzip = q;
+            else if ("deflate".equals(coding)) deflate = q;
+            else if ("*".equals(coding)) any = q;
+        }
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip > 0 && gzip >= deflate) return "gzip";
+        return deflate > 0 ? "deflate" : null;
+    }
+
+    private static boolean compressible(String contentType) {
+        if (contentType == null) return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml") || type.contains("javascript");
+    }
+
+    // the conditional headers with the coding taken off their tags, and the coding the If-None-Match tags carried
+    private static final class CodedTagsRequest extends HttpServletRequestWrapper {
+        private String coding;
+
+        CodedTagsRequest(HttpServletRequest request) {
+            super(request);
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            Matcher matcher = CODED_TAG.matcher(ifNoneMatch == null ? "" : ifNoneMatch);
+            if (matcher.find()) coding = matcher.group(1);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return conditional(name) && value != null ? uncoded(value) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            Enumeration<String> values = super.getHeaders(name);
+            if (!conditional(name) || values == null) return values;
+            List<String> uncoded = new ArrayList<>();
+            while (values.hasMoreElements()) uncoded.add(uncoded(values.nextElement()));
+            return Collections.enumeration(uncoded);
+        }
+
+        private static boolean conditional(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) || HttpHeaders.IF_MATCH.equalsIgnoreCase(name);
+        }
+
+        private static String uncoded(String tags) {
+            return CODED_TAG.matcher(tags).replaceAll("\"");
+        }
+    }
+
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+        private final String encoding;
+        private CompressingStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) throw new IllegalStateException("getOutputStream() has already been called");
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // the length of the body as written is only known to hold if it goes out uncompressed
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (stream == null || stream.target == null) contentLength = len;
+            else if (!stream.compressing) super.setContentLengthLong(len);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) setContentLengthLong(Long.parseLong(value));
+            else super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) setContentLengthLong(Long.parseLong(value));
+            else super.addHeader(name, value);
+        }
+
+        // committing before the size decision would send the headers without the encoding
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) writer.flush();
+            else if (stream != null) stream.flush();
+            if (stream == null || stream.target != null) super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (stream != null && stream.target == null) stream.buffer.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (stream != null && stream.target == null) stream.buffer.reset();
+            contentLength = -1;
+            super.reset();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) writer.flush();
+            if (stream != null) stream.finish();
+            else if (contentLength >= 0) super.setContentLengthLong(contentLength);
+        }
+
+        void release() {
+            if (stream != null) stream.release();
+        }
+
+        // a weak tag already allows for a different coding of the same content
+        void tagCoding(String coding) {
+            String eTag = getHeader(HttpHeaders.ETAG);
+            if (eTag != null && eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\""))
+                setHeader(HttpHeaders.ETAG, eTag.substring(0, eTag.length() - 1) + "-" + coding + "\"");
+        }
+
+        private CompressingStream stream() throws IOException {
+            if (stream == null) stream = new CompressingStream(this, getResponse().getOutputStream());
+            return stream;
+        }
+
+        private boolean shouldCompress() {
+            return encoding != null && !containsHeader(HttpHeaders.CONTENT_ENCODING) && compressible(getContentType())
+                    && getStatus() != HttpServletResponse.SC_NO_CONTENT && getStatus() != HttpServletResponse.SC_NOT_MODIFIED
+                    && (contentLength < 0 || contentLength >= minSize);
+        }
+    }
+
+    private final class CompressingStream extends ServletOutputStream {
+        private final CompressingResponse response;
+        private final ServletOutputStream out;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+        private Deflater deflater;
+        private CountingOutputStream counter;
+        private boolean compressing;
+        private long written;
+
+        CompressingStream(CompressingResponse response, ServletOutputStream out) {
+            this.response = response;
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            written++;
+            if (target == null && buffer.size() + 1 < minSize) {
+                buffer.write(b);
+                return;
+            }
+            if (target == null) start(true);
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            written += len;
+            if (target == null && buffer.size() + len < minSize) {
+                buffer.write(b, off, len);
+                return;
+            }
+            if (target == null) start(true);
+            target.write(b, off, len);
+        }
+
+        // nothing is sent before the size decision; after it a sync flush pushes the compressed bytes out
+        @Override
+        public void flush() throws IOException {
+            if (target != null) target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            out.setWriteListener(writeListener);
+        }
+
+        void finish() throws IOException {
+            if (target == null) start(false);
+            if (compressing) {
+                target.close();
+                target = out;
+                compressing = false;
+                metrics.recordCompressed(written, counter.count);
+            }
+            out.flush();
+        }
+
+        // ending a deflater more than once is harmless
+        void release() {
+            if (deflater != null) deflater.end();
+        }
+
+        private void start(boolean large) throws IOException {
+            if (!response.containsHeader(HttpHeaders.VARY) || !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING))
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (large && response.shouldCompress()) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, response.encoding);
+                response.tagCoding(response.encoding);
+                counter = new CountingOutputStream(out);
+                target = "gzip".equals(response.encoding) ? gzip(counter) : deflate(counter);
+                compressing = true;
+            } else {
+                if (response.contentLength >= 0) response.getResponse().setContentLengthLong(response.contentLength);
+                target = out;
+                metrics.recordUncompressed();
+            }
+            buffer.writeTo(target);
+            buffer.reset();
+        }
+
+        private OutputStream gzip(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE, true) {
+                {
+                    def.setLevel(level);
+                    deflater = def;
+                }
+            };
+        }
+
+        private OutputStream deflate(OutputStream out) {
+            deflater = new Deflater(level);
+            return new DeflaterOutputStream(out, deflater, BUFFER_SIZE, true);
+        }
+    }
+
+    // counts the compressed bytes; closing it leaves the response stream open for the container
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,33 +1,84 @@
 package com.space.config;
 
+import com.space.compression.CompressionFilter;
+import com.space.metrics.CacheMetrics;
+import com.space.metrics.CompressionMetrics;
+import com.space.metrics.PoolMetrics;
+import com.space.routing.ReadYourWrites;
+import com.space.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
-
-import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
 public class AppConfig {
+    public static final String SHIP_REGION = "com.space.model.Ship";
+
+    private final Environment environment;
+
+    @Autowired
+    public AppConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    // databases created by init.sql already hold the V1 schema, so they are baselined instead of migrated from scratch
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(@Qualifier("primaryDataSource") DataSource dataSource) {
+        String vendor = environment.acceptsProfiles(Profiles.of("dev")) ? "h2" : "mysql";
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/" + vendor)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
 
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
@@ -36,32 +87,102 @@ public class AppConfig {
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(additionalProperties());
+        em.getJpaPropertyMap().put(ConfigSettings.CACHE_MANAGER, jcacheManager());
 
         return em;
     }
 
-    @Profile("prod")
+    // Ship entities, query results and the update timestamps that invalidate them, each bounded in entries
+    @Bean(destroyMethod = "close")
+    public CacheManager jcacheManager() {
+        ResourcePoolsBuilder shipPool = ResourcePoolsBuilder.heap(environment.getProperty("cache.ship.maxEntries", Long.class, 10000L));
+        ResourcePoolsBuilder queryPool = ResourcePoolsBuilder.heap(environment.getProperty("cache.query.maxEntries", Long.class, 1000L));
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(SHIP_REGION, CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, shipPool).build())
+                .withCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, queryPool).build())
+                .withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(100)).build())
+                .build();
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("urn:cosmoport:" + UUID.randomUUID()), configuration);
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.enableStatistics(cacheName, true);
+        }
+        return cacheManager;
+    }
+
     @Bean
+    public CacheMetrics cacheMetrics(EntityManagerFactory emf) {
+        return new CacheMetrics(emf.unwrap(SessionFactory.class), jcacheManager());
+    }
+
+    /**
+     * The application's data source: read-only transactions go to the replicas listed in {@code db.replica.urls},
+     * all other work to the primary.
+     */
+    @Bean
+    @Primary
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource() {
+        List<DataSource> replicas = new ArrayList<>();
+        String[] urls = environment.getProperty("db.replica.urls", String[].class, new String[0]);
+        for (int i = 0; i < urls.length; i++) {
+            HikariConfig config = environment.acceptsProfiles(Profiles.of("dev")) ? poolConfig() : serverConfig();
+            config.setPoolName("cosmoport-replica-" + i);
+            config.setMetricsTrackerFactory(null);
+            config.setJdbcUrl(urls[i].trim());
+            config.setReadOnly(true);
+            replicas.add(new HikariDataSource(config));
+        }
+        ReplicaRoutingDataSource.Selection selection = environment.getProperty("db.replica.selection",
+                ReplicaRoutingDataSource.Selection.class, ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        return new ReplicaRoutingDataSource(primaryDataSource(), replicas, selection);
+    }
+
+    @Profile("prod")
+    @Bean(destroyMethod = "close")
+    public DataSource primaryDataSource() {
+        HikariConfig config = serverConfig();
+        config.setJdbcUrl(environment.getProperty("spring.datasource.url", "jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC"));
+        return new HikariDataSource(config);
     }
 
     @Profile("dev")
-    @Bean(name = "dataSource")
+    @Bean(name = "primaryDataSource", destroyMethod = "close")
     public DataSource dataSourceForTests() {
+        HikariConfig config = poolConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return new HikariDataSource(config);
+    }
 
-        return new EmbeddedDatabaseBuilder()
-                .generateUniqueName(true)
-                .setType(H2)
-                .setScriptEncoding("UTF-8")
-                .ignoreFailedDrops(true)
-                .addScript("test.sql")
-                .build();
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public CompressionMetrics compressionMetrics() {
+        return new CompressionMetrics();
+    }
+
+    @Bean
+    public CompressionFilter compressionFilter() {
+        return new CompressionFilter(
+                environment.getProperty("compression.enabled", Boolean.class, true),
+                environment.getProperty("compression.minSize", Integer.class, 1024),
+                environment.getProperty("compression.level", Integer.class, 6),
+                compressionMetrics());
     }
 
     @Bean
@@ -72,14 +193,61 @@ public class AppConfig {
         return transactionManager;
     }
 
+    @Bean
+    public ThreadPoolTaskExecutor queryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("ship-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(ReadYourWrites.propagating());
+        return executor;
+    }
+
     @Bean
     public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
+    private HikariConfig poolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cosmoport");
+        config.setMaximumPoolSize(environment.getProperty("db.pool.maximumPoolSize", Integer.class, 10));
+        config.setMinimumIdle(environment.getProperty("db.pool.minimumIdle", Integer.class, 2));
+        config.setConnectionTimeout(environment.getProperty("db.pool.connectionTimeoutMs", Long.class, 30000L));
+        config.setIdleTimeout(environment.getProperty("db.pool.idleTimeoutMs", Long.class, 600000L));
+        config.setMaxLifetime(environment.getProperty("db.pool.maxLifetimeMs", Long.class, 1800000L));
+        config.setMetricsTrackerFactory(poolMetrics());
+        return config;
+    }
+
+    private HikariConfig serverConfig() {
+        HikariConfig config = poolConfig();
+        config.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name", "com.mysql.cj.jdbc.Driver"));
+        config.setUsername(environment.getProperty("spring.datasource.username", "root"));
+        config.setPassword(environment.getProperty("spring.datasource.password", "root"));
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("useCursorFetch", "true");
+        return config;
+    }
+
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.criteria.literal_handling_mode", "bind");
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        properties.setProperty("hibernate.generate_statistics", "true");
+        properties.setProperty("hibernate.jdbc.batch_size", environment.getProperty("db.batch.size", "500"));
+        properties.setProperty("hibernate.order_updates", "true");
 
         return properties;
     }
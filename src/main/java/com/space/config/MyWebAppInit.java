@@ -1,7 +1,10 @@
 package com.space.config;
 
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -28,4 +31,11 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    // lets <c:url> in the JSP resolve resource paths to their versioned URLs, and compresses responses with the
+    // filter configured in the root context
+    @Override
+    protected Filter[] getServletFilters() {
+        return new Filter[]{new ResourceUrlEncodingFilter(), new DelegatingFilterProxy("compressionFilter")};
+    }
+
 }
\ No newline at end of file
@@ -2,26 +2,54 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.space.model.Ship;
+import com.space.model.ShipDeserializer;
+import com.space.model.ShipSerializer;
+import com.space.resource.VersionedCacheTransformer;
+import com.space.routing.ReadYourWritesInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.ViewResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.CachingResourceResolver;
+import org.springframework.web.servlet.resource.CachingResourceTransformer;
+import org.springframework.web.servlet.resource.CssLinkResourceTransformer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    private final Environment environment;
+
+    @Autowired
+    public WebConfig(Environment environment) {
+        this.environment = environment;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -39,14 +67,42 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        // URLs carry a hash of the content, so a changed file gets a new URL and the old one can be kept for good;
+        // the plain path of a file is revalidated on every use. The encoded resolver goes before the version one so
+        // the hash is that of the plain file. The chain's caches are named rather than left to resourceChain(true),
+        // which puts the caching transformer first: it keys by resource, and a file's plain and versioned URLs can
+        // resolve to equal ones, so it would hand one URL's Cache-Control to the other
+        Cache cache = new ConcurrentMapCache("resource-chain");
+        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(false)
+                .addResolver(new CachingResourceResolver(cache))
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"))
+                .addTransformer(new VersionedCacheTransformer(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()))
+                .addTransformer(new CachingResourceTransformer(cache))
+                .addTransformer(new CssLinkResourceTransformer());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        long window = environment.getProperty("db.readYourWrites.windowMs", Long.class, 5000L);
+        registry.addInterceptor(new ReadYourWritesInterceptor(window)).addPathPatterns("/rest/**");
     }
 
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        // JSON comes first, so it is what clients get when they accept anything; CBOR and Smile carry the same data
+        List<AbstractJackson2HttpMessageConverter> jackson = Arrays.asList(new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter(), new MappingJackson2SmileHttpMessageConverter());
+        for (AbstractJackson2HttpMessageConverter converter : jackson) {
+            converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+            converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+            // ships, the bulk of every response, skip the reflective bean (de)serializers
+            converter.getObjectMapper().registerModule(new SimpleModule("ship")
+                    .addSerializer(Ship.class, new ShipSerializer())
+                    .addDeserializer(Ship.class, new ShipDeserializer()));
+            converters.add(converter);
+        }
     }
 }
\ No newline at end of file
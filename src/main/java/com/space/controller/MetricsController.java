@@ -0,0 +1,58 @@
+package com.space.controller;
+
+import com.space.metrics.CacheMetrics;
+import com.space.metrics.CompressionMetrics;
+import com.space.metrics.PoolMetrics;
+import com.space.service.ShipByIdCache;
+import com.space.service.ShipResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("rest/metrics")
+public class MetricsController {
+    private final PoolMetrics poolMetrics;
+    private final CacheMetrics cacheMetrics;
+    private final ShipByIdCache shipByIdCache;
+    private final ShipResultCache shipResultCache;
+    private final CompressionMetrics compressionMetrics;
+
+    @Autowired
+    public MetricsController(PoolMetrics poolMetrics, CacheMetrics cacheMetrics, ShipByIdCache shipByIdCache,
+                             ShipResultCache shipResultCache, CompressionMetrics compressionMetrics) {
+        this.poolMetrics = poolMetrics;
+        this.cacheMetrics = cacheMetrics;
+        this.shipByIdCache = shipByIdCache;
+        this.shipResultCache = shipResultCache;
+        this.compressionMetrics = compressionMetrics;
+    }
+
+    @GetMapping("/pool")
+    public Map<String, Object> getPoolMetrics() {
+        return poolMetrics.snapshot();
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheMetrics() {
+        return cacheMetrics.snapshot();
+    }
+
+    @GetMapping("/cache/ships")
+    public Map<String, Object> getShipByIdCacheMetrics() {
+        return shipByIdCache.snapshot();
+    }
+
+    @GetMapping("/cache/filters")
+    public Map<String, Object> getFilterCacheMetrics() {
+        return shipResultCache.snapshot();
+    }
+
+    @GetMapping("/compression")
+    public Map<String, Object> getCompressionMetrics() {
+        return compressionMetrics.snapshot();
+    }
+}
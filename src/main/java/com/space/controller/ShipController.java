@@ -1,13 +1,33 @@
 package com.space.controller;
 
 import com.space.exception.BadRequestException;
+import com.space.exception.PreconditionFailedException;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipEncoding;
+import com.space.model.ShipFormat;
+import com.space.model.ShipImportResult;
+import com.space.model.ShipPage;
+import com.space.model.ShipStats;
 import com.space.model.ShipType;
+import com.space.model.StatsGroup;
+import com.space.service.ShipImporter;
+import com.space.service.ShipPageService;
 import com.space.service.ShipService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,15 +35,37 @@ import java.util.Map;
 @RestController
 @RequestMapping("rest/ships")
 public class ShipController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final Map<ShipEncoding, MediaType> ENCODINGS = new EnumMap<>(ShipEncoding.class);
+
+    static {
+        for (ShipEncoding encoding : ShipEncoding.values()) ENCODINGS.put(encoding, MediaType.parseMediaType(encoding.getContentType()));
+    }
+
     private final ShipService shipService;
+    private final ShipPageService shipPageService;
+    private final ShipImporter shipImporter;
+    private final boolean streaming;
 
     @Autowired
-    public ShipController(ShipService shipService) {
+    public ShipController(ShipService shipService, ShipPageService shipPageService, ShipImporter shipImporter, Environment environment) {
         this.shipService = shipService;
+        this.shipPageService = shipPageService;
+        this.shipImporter = shipImporter;
+        this.streaming = environment.getProperty("rest.ships.streaming", Boolean.class, true);
+    }
+
+    // the ship responses are negotiated on Accept, so a shared cache must not hand one encoding to a client asking for
+    // another; set before any handler runs, it is on the 304s as well
+    @ModelAttribute
+    public void varyByAccept(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
     }
 
     @GetMapping
-    public List<Ship> getShips(@RequestParam(required = false) String name,
+    public ResponseEntity<List<Ship>> getShips(WebRequest request, HttpServletResponse response,
+                               @RequestParam(required = false) String name,
                                @RequestParam(required = false) String planet,
                                @RequestParam(required = false) ShipType shipType,
                                @RequestParam(required = false) Long after,
@@ -37,15 +79,69 @@ public class ShipController {
                                @RequestParam(required = false) Double maxRating,
                                @RequestParam(required = false) ShipOrder order,
                                @RequestParam(required = false) Integer pageNumber,
-                               @RequestParam(required = false) Integer pageSize
-                                   ) {
+                               @RequestParam(required = false) Integer pageSize,
+                               @RequestParam(required = false) String cursor
+                                   ) throws IOException {
+        Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        if (notModified(request, filterCriteria)) return null;
+        if (cursor != null) return getShipsAfter(filterCriteria, order, cursor, pageSize == null ? 3 : pageSize);
+        ShipEncoding encoding = negotiate(request);
+        // an Accept header none of the encodings satisfies is left to the message converters to refuse
+        if (streaming && encoding != null) {
+            response.setContentType(encoding.getContentType());
+            shipService.writeShips(filterCriteria, pageRequest(order, pageNumber, pageSize), encoding, response.getOutputStream());
+            return null;
+        }
+        return ResponseEntity.ok(shipService.getShips(filterCriteria, pageRequest(order, pageNumber, pageSize)));
+    }
+
+    @GetMapping("/page")
+    public ShipPage getShipPage(WebRequest request,
+                                @RequestParam(required = false) String name,
+                                @RequestParam(required = false) String planet,
+                                @RequestParam(required = false) ShipType shipType,
+                                @RequestParam(required = false) Long after,
+                                @RequestParam(required = false) Long before,
+                                @RequestParam(required = false) Boolean isUsed,
+                                @RequestParam(required = false) Double minSpeed,
+                                @RequestParam(required = false) Double maxSpeed,
+                                @RequestParam(required = false) Integer minCrewSize,
+                                @RequestParam(required = false) Integer maxCrewSize,
+                                @RequestParam(required = false) Double minRating,
+                                @RequestParam(required = false) Double maxRating,
+                                @RequestParam(required = false) ShipOrder order,
+                                @RequestParam(required = false) Integer pageNumber,
+                                @RequestParam(required = false) Integer pageSize,
+                                @RequestParam(defaultValue = "true") boolean withCount) {
+        Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        if (notModified(request, filterCriteria)) return null;
+        return shipPageService.getPage(filterCriteria, pageRequest(order, pageNumber, pageSize), withCount);
+    }
+
+    @GetMapping("/export")
+    public void exportShips(HttpServletResponse response,
+                            @RequestParam(required = false) String name,
+                            @RequestParam(required = false) String planet,
+                            @RequestParam(required = false) ShipType shipType,
+                            @RequestParam(required = false) Long after,
+                            @RequestParam(required = false) Long before,
+                            @RequestParam(required = false) Boolean isUsed,
+                            @RequestParam(required = false) Double minSpeed,
+                            @RequestParam(required = false) Double maxSpeed,
+                            @RequestParam(required = false) Integer minCrewSize,
+                            @RequestParam(required = false) Integer maxCrewSize,
+                            @RequestParam(required = false) Double minRating,
+                            @RequestParam(required = false) Double maxRating,
+                            @RequestParam(defaultValue = "NDJSON") ShipFormat format) throws IOException {
         Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
-        Pageable pageable = PageRequest.of(pageNumber == null ? 0 : pageNumber, pageSize == null ? 3 : pageSize, Sort.by(order == null ? ShipOrder.ID.getFieldName() : order.getFieldName()));
-        return shipService.getShips(filterCriteria, pageable);
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ships." + format.name().toLowerCase() + "\"");
+        shipService.exportShips(filterCriteria, format, response.getOutputStream());
     }
 
     @GetMapping("/count")
-    public int getShipCount (@RequestParam(required = false) String name,
+    public Integer getShipCount (WebRequest request,
+                              @RequestParam(required = false) String name,
                               @RequestParam(required = false) String planet,
                               @RequestParam(required = false) ShipType shipType,
                               @RequestParam(required = false) Long after,
@@ -58,9 +154,88 @@ public class ShipController {
                               @RequestParam(required = false) Double minRating,
                               @RequestParam(required = false) Double maxRating) {
         Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        if (notModified(request, filterCriteria)) return null;
         return shipService.getCount(filterCriteria);
     }
 
+    @GetMapping("/top")
+    public List<Ship> getTopShips(@RequestParam(required = false) String name,
+                                  @RequestParam(required = false) String planet,
+                                  @RequestParam(required = false) ShipType shipType,
+                                  @RequestParam(required = false) Long after,
+                                  @RequestParam(required = false) Long before,
+                                  @RequestParam(required = false) Boolean isUsed,
+                                  @RequestParam(required = false) Double minSpeed,
+                                  @RequestParam(required = false) Double maxSpeed,
+                                  @RequestParam(required = false) Integer minCrewSize,
+                                  @RequestParam(required = false) Integer maxCrewSize,
+                                  @RequestParam(required = false) Double minRating,
+                                  @RequestParam(required = false) Double maxRating,
+                                  @RequestParam(defaultValue = "RATING") ShipOrder order,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return shipService.getTopShips(filterCriteria, order.getFieldName(), limit);
+    }
+
+    @GetMapping("/stats")
+    public List<ShipStats> getShipStats(@RequestParam(required = false) String name,
+                                        @RequestParam(required = false) String planet,
+                                        @RequestParam(required = false) ShipType shipType,
+                                        @RequestParam(required = false) Long after,
+                                        @RequestParam(required = false) Long before,
+                                        @RequestParam(required = false) Boolean isUsed,
+                                        @RequestParam(required = false) Double minSpeed,
+                                        @RequestParam(required = false) Double maxSpeed,
+                                        @RequestParam(required = false) Integer minCrewSize,
+                                        @RequestParam(required = false) Integer maxCrewSize,
+                                        @RequestParam(required = false) Double minRating,
+                                        @RequestParam(required = false) Double maxRating,
+                                        @RequestParam(required = false) StatsGroup groupBy,
+                                        @RequestParam(defaultValue = "10") int buckets) {
+        Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return shipService.getStats(filterCriteria, groupBy, buckets);
+    }
+
+    @PostMapping("/import")
+    public ShipImportResult importShips(HttpServletRequest request, @RequestParam(defaultValue = "NDJSON") ShipFormat format) throws IOException {
+        return shipImporter.importShips(request.getInputStream(), format);
+    }
+
+    @PatchMapping
+    public int updateShips(@RequestParam(required = false) String name,
+                           @RequestParam(required = false) String planet,
+                           @RequestParam(required = false) ShipType shipType,
+                           @RequestParam(required = false) Long after,
+                           @RequestParam(required = false) Long before,
+                           @RequestParam(required = false) Boolean isUsed,
+                           @RequestParam(required = false) Double minSpeed,
+                           @RequestParam(required = false) Double maxSpeed,
+                           @RequestParam(required = false) Integer minCrewSize,
+                           @RequestParam(required = false) Integer maxCrewSize,
+                           @RequestParam(required = false) Double minRating,
+                           @RequestParam(required = false) Double maxRating,
+                           @RequestBody Ship ship) {
+        Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return shipService.updateShips(filterCriteria, ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(), ship.isUsed(), ship.getSpeed(), ship.getCrewSize());
+    }
+
+    @DeleteMapping
+    public int deleteShips(@RequestParam(required = false) String name,
+                           @RequestParam(required = false) String planet,
+                           @RequestParam(required = false) ShipType shipType,
+                           @RequestParam(required = false) Long after,
+                           @RequestParam(required = false) Long before,
+                           @RequestParam(required = false) Boolean isUsed,
+                           @RequestParam(required = false) Double minSpeed,
+                           @RequestParam(required = false) Double maxSpeed,
+                           @RequestParam(required = false) Integer minCrewSize,
+                           @RequestParam(required = false) Integer maxCrewSize,
+                           @RequestParam(required = false) Double minRating,
+                           @RequestParam(required = false) Double maxRating) {
+        Map<String, Object> filterCriteria = fillFilterMap(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return shipService.deleteShips(filterCriteria);
+    }
+
     @PostMapping()
     public Ship addNewShip(@RequestBody Ship ship)
     {
@@ -68,15 +243,22 @@ public class ShipController {
         return shipService.createNewShip(ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(), ship.isUsed() == null ? false : ship.isUsed(), ship.getSpeed(), ship.getCrewSize());
     }
 
+    @PostMapping("/batch")
+    public ShipBatchResult addNewShips(@RequestBody List<Ship> ships) {
+        return shipService.createShips(ships);
+    }
 
     @PostMapping("/{id}")
-    public Ship updateShip(@PathVariable Long id, @RequestBody Ship ship){
-        return shipService.updateShip(id, ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(), ship.isUsed(), ship.getSpeed(), ship.getCrewSize());
+    public ResponseEntity<Ship> updateShip(WebRequest request, @PathVariable Long id, @RequestBody Ship ship,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ship updated = shipService.updateShip(id, expectedVersion(ifMatch), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(), ship.isUsed(), ship.getSpeed(), ship.getCrewSize());
+        return ResponseEntity.ok().eTag(eTag(updated, negotiate(request))).body(updated);
     }
 
     @GetMapping("/{id}")
-    public Ship getShip(@PathVariable Long id){
-        return shipService.findById(id);
+    public ResponseEntity<Ship> getShip(WebRequest request, @PathVariable Long id){
+        Ship ship = shipService.findById(id);
+        return ResponseEntity.ok().eTag(eTag(ship, negotiate(request))).body(ship);
     }
 
     @DeleteMapping("/{id}")
@@ -84,6 +266,79 @@ public class ShipController {
         shipService.deleteShip(id);
     }
 
+    private ResponseEntity<List<Ship>> getShipsAfter(Map<String, Object> filterCriteria, ShipOrder order, String cursor, int pageSize) {
+        ShipCursor position = cursor.isEmpty() ? ShipCursor.start(order == null ? ShipOrder.ID : order) : ShipCursor.decode(cursor);
+        if ((order != null && order != position.getOrder()) || pageSize < 1) throw new BadRequestException();
+
+        List<Ship> ships = shipService.getShipsAfter(filterCriteria, position.getOrder().getFieldName(), position.getSortValue(), position.getId(), pageSize + 1);
+        if (ships.size() <= pageSize) return ResponseEntity.ok(ships);
+
+        List<Ship> page = ships.subList(0, pageSize);
+        String next = ShipCursor.after(position.getOrder(), page.get(pageSize - 1)).encode();
+        return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, next).body(page);
+    }
+
+    // sets the ETag of the results and answers 304 when the client already has them, before any query runs;
+    // the binary encodings of the same results get tags of their own, and results read on a replica get none
+    private boolean notModified(WebRequest request, Map<String, Object> filterCriteria) {
+        String version = shipService.getFleetVersion(filterCriteria);
+        if (version == null) return false;
+        return request.checkNotModified("\"" + version + suffix(negotiate(request)) + "\"");
+    }
+
+    // the most preferred encoding the Accept header allows, JSON without one, null if it allows none
+    private static ShipEncoding negotiate(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.trim().isEmpty()) return ShipEncoding.JSON;
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) continue;
+            for (Map.Entry<ShipEncoding, MediaType> encoding : ENCODINGS.entrySet()) {
+                if (type.isCompatibleWith(encoding.getValue())) return encoding.getKey();
+            }
+        }
+        return null;
+    }
+
+    // what tells an encoding's ETag apart from the JSON one of the same version
+    private static String suffix(ShipEncoding encoding) {
+        return encoding == null || encoding == ShipEncoding.JSON ? "" : "-" + encoding.name().toLowerCase();
+    }
+
+    private static String eTag(Ship ship, ShipEncoding encoding) {
+        return "\"" + ship.getVersion() + suffix(encoding) + "\"";
+    }
+
+    // the ship version an If-Match header asks for, in whichever encoding's tag, null when any version will do
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) throw new PreconditionFailedException();
+        String version = tag.substring(1, tag.length() - 1);
+        for (ShipEncoding encoding : ShipEncoding.values()) {
+            String suffix = suffix(encoding);
+            if (!suffix.isEmpty() && version.endsWith(suffix)) version = version.substring(0, version.length() - suffix.length());
+        }
+        try {
+            return Long.valueOf(version);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException();
+        }
+    }
+
+    private Pageable pageRequest(ShipOrder order, Integer pageNumber, Integer pageSize) {
+        String field = order == null ? ShipOrder.ID.getFieldName() : order.getFieldName();
+        // id breaks ties, so equal sort values come back in the same order on every path and page
+        Sort sort = ShipOrder.ID.getFieldName().equals(field) ? Sort.by(field) : Sort.by(field, ShipOrder.ID.getFieldName());
+        return PageRequest.of(pageNumber == null ? 0 : pageNumber, pageSize == null ? 3 : pageSize, sort);
+    }
+
     private Map<String, Object> fillFilterMap(String name, String planet, ShipType shipType, Long after, Long before, Boolean isUsed, Double minSpeed, Double maxSpeed, Integer minCrewSize, Integer maxCrewSize, Double minRating, Double maxRating) {
         Map<String, Object> filterCriteria = new HashMap<>();
         if(name != null) filterCriteria.put("name", name);
@@ -0,0 +1,83 @@
+package com.space.controller;
+
+import com.space.exception.BadRequestException;
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset position for {@code GET /rest/ships}: the sort order, the sort value of the last ship returned
+ * and its id as the tie-breaker.
+ */
+public class ShipCursor {
+    private final ShipOrder order;
+    private final Comparable<?> value;
+    private final Long id;
+
+    private ShipCursor(ShipOrder order, Comparable<?> value, Long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ShipCursor start(ShipOrder order) {
+        return new ShipCursor(order, null, null);
+    }
+
+    public static ShipCursor after(ShipOrder order, Ship ship) {
+        switch (order) {
+            case SPEED:
+                return new ShipCursor(order, ship.getSpeed(), ship.getId());
+            case DATE:
+                return new ShipCursor(order, ship.getProdDate().getTime(), ship.getId());
+            case RATING:
+                return new ShipCursor(order, ship.getRating(), ship.getId());
+            case CREW_SIZE:
+                return new ShipCursor(order, ship.getCrewSize(), ship.getId());
+            default:
+                return new ShipCursor(order, ship.getId(), ship.getId());
+        }
+    }
+
+    public static ShipCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) throw new BadRequestException();
+            ShipOrder order = ShipOrder.valueOf(parts[0]);
+            return new ShipCursor(order, parseValue(order, parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + ":" + value + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getSortValue() {
+        return order == ShipOrder.DATE && value != null ? new Date((Long) value) : value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    private static Comparable<?> parseValue(ShipOrder order, String value) {
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return Double.valueOf(value);
+            case CREW_SIZE:
+                return Integer.valueOf(value);
+            default:
+                return Long.valueOf(value);
+        }
+    }
+}
@@ -4,7 +4,8 @@ public enum ShipOrder {
     ID("id"), // default
     SPEED("speed"),
     DATE("prodDate"),
-    RATING("rating");
+    RATING("rating"),
+    CREW_SIZE("crewSize");
 
     private String fieldName;
 
@@ -0,0 +1,8 @@
+package com.space.event;
+
+/**
+ * Published when the ship table may have changed in ways single ship events do not describe: at startup, and after
+ * bulk or external modifications. Listeners holding derived state rebuild it from the database.
+ */
+public class FleetChangedEvent {
+}
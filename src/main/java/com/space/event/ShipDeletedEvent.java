@@ -0,0 +1,16 @@
+package com.space.event;
+
+/**
+ * Published by {@code ShipService} when a ship is deleted.
+ */
+public class ShipDeletedEvent {
+    private final Long id;
+
+    public ShipDeletedEvent(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,18 @@
+package com.space.event;
+
+import com.space.model.Ship;
+
+/**
+ * Published by {@code ShipService} when a ship is created or updated.
+ */
+public class ShipSavedEvent {
+    private final Ship ship;
+
+    public ShipSavedEvent(Ship ship) {
+        this.ship = ship;
+    }
+
+    public Ship getShip() {
+        return ship;
+    }
+}
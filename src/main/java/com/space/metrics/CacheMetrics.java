@@ -0,0 +1,64 @@
+package com.space.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.cache.CacheManager;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hit, miss, put and eviction statistics of the Hibernate second-level cache regions.
+ * Hits and misses come from Hibernate statistics, evictions from the JCache statistics MBeans.
+ */
+public class CacheMetrics {
+    private final SessionFactory sessionFactory;
+    private final CacheManager cacheManager;
+
+    public CacheMetrics(SessionFactory sessionFactory, CacheManager cacheManager) {
+        this.sessionFactory = sessionFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    public Map<String, Object> snapshot() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) continue;
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", regionStatistics.getHitCount());
+            entry.put("misses", regionStatistics.getMissCount());
+            entry.put("puts", regionStatistics.getPutCount());
+            entry.put("evictions", evictions(region));
+            snapshot.put(region, entry);
+        }
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+        snapshot.put("queries", queries);
+        return snapshot;
+    }
+
+    public long evictions(String cacheName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("javax.cache:type=CacheStatistics"
+                    + ",CacheManager=" + sanitize(cacheManager.getURI().toString())
+                    + ",Cache=" + sanitize(cacheName));
+            return server.isRegistered(name) ? (Long) server.getAttribute(name, "CacheEvictions") : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // the JCache statistics MBean naming rule
+    private static String sanitize(String value) {
+        return value.replaceAll("[,:=\n]", ".");
+    }
+}
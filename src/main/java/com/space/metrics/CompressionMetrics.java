@@ -0,0 +1,39 @@
+package com.space.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Response compression counters: responses compressed and sent as they were, and the body bytes before and after
+ * compression.
+ */
+public class CompressionMetrics {
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong uncompressed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    public void recordCompressed(long in, long out) {
+        compressed.incrementAndGet();
+        bytesIn.addAndGet(in);
+        bytesOut.addAndGet(out);
+    }
+
+    public void recordUncompressed() {
+        uncompressed.incrementAndGet();
+    }
+
+    public Map<String, Object> snapshot() {
+        long in = bytesIn.get();
+        long out = bytesOut.get();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("compressed", compressed.get());
+        snapshot.put("uncompressed", uncompressed.get());
+        snapshot.put("bytesIn", in);
+        snapshot.put("bytesOut", out);
+        snapshot.put("bytesSaved", in - out);
+        snapshot.put("ratio", in == 0 ? 0.0 : (double) out / in);
+        return snapshot;
+    }
+}
@@ -0,0 +1,89 @@
+package com.space.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Connection pool saturation metrics: live gauges from the pool plus counters for connection creation,
+ * checkout wait time and checkout timeouts.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong usageMillis = new AtomicLong();
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                created.incrementAndGet();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquired.incrementAndGet();
+                waitNanos.addAndGet(elapsedAcquiredNanos);
+                maxWaitNanos.accumulate(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.addAndGet(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.incrementAndGet();
+            }
+        };
+    }
+
+    public long getConnectionsCreated() {
+        return created.get();
+    }
+
+    public long getConnectionsAcquired() {
+        return acquired.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        snapshot.put("pool", poolName);
+        if (stats != null) {
+            snapshot.put("active", stats.getActiveConnections());
+            snapshot.put("idle", stats.getIdleConnections());
+            snapshot.put("total", stats.getTotalConnections());
+            snapshot.put("max", stats.getMaxConnections());
+            snapshot.put("pendingThreads", stats.getPendingThreads());
+        }
+        long acquiredCount = acquired.get();
+        snapshot.put("connectionsCreated", created.get());
+        snapshot.put("connectionsAcquired", acquiredCount);
+        snapshot.put("averageWaitMicros", acquiredCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.get() / acquiredCount));
+        snapshot.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+        snapshot.put("averageUsageMillis", acquiredCount == 0 ? 0 : usageMillis.get() / acquiredCount);
+        snapshot.put("timeouts", timeouts.get());
+        return snapshot;
+    }
+}
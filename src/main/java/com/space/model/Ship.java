@@ -1,10 +1,18 @@
 package com.space.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Date;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class Ship implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -23,6 +31,11 @@ public class Ship implements Serializable {
     private Integer crewSize;
     private Double rating;
 
+    // exposed as the ETag of the ship rather than in its JSON
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public Ship(String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize, Double rating) {
         this.name = name;
         this.planet = planet;
@@ -108,4 +121,8 @@ public class Ship implements Serializable {
     public void setRating(Double rating) {
         this.rating = rating;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
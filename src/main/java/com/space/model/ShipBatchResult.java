@@ -0,0 +1,63 @@
+package com.space.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShipBatchResult {
+    private int created;
+    private int rejected;
+    private List<Item> items = new ArrayList<>();
+
+    public void created(int index, Long id) {
+        items.add(new Item(index, Status.CREATED, id));
+        created++;
+    }
+
+    public void rejected(int index) {
+        items.add(new Item(index, Status.REJECTED, null));
+        rejected++;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    public static class Item {
+        private int index;
+        private Status status;
+        private Long id;
+
+        public Item(int index, Status status, Long id) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+        }
+
+        public Item() {
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Reads a {@link Ship} the way field-visibility Jackson does, without reflection. Plain JSON values are read straight
+ * from the parser; anything else, such as a number in a string or a date in ISO form, goes to Jackson's standard
+ * deserializer for the field's type, looked up once, so coercions and errors stay the same. {@code version} is
+ * ignored and any other unknown field is handled as the mapper is configured to.
+ */
+public class ShipDeserializer extends StdDeserializer<Ship> implements ResolvableDeserializer {
+    private JsonDeserializer<Object> longs;
+    private JsonDeserializer<Object> integers;
+    private JsonDeserializer<Object> doubles;
+    private JsonDeserializer<Object> booleans;
+    private JsonDeserializer<Object> strings;
+    private JsonDeserializer<Object> dates;
+    private JsonDeserializer<Object> shipTypes;
+
+    public ShipDeserializer() {
+        super(Ship.class);
+    }
+
+    @Override
+    public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+        longs = ctxt.findRootValueDeserializer(ctxt.constructType(Long.class));
+        integers = ctxt.findRootValueDeserializer(ctxt.constructType(Integer.class));
+        doubles = ctxt.findRootValueDeserializer(ctxt.constructType(Double.class));
+        booleans = ctxt.findRootValueDeserializer(ctxt.constructType(Boolean.class));
+        strings = ctxt.findRootValueDeserializer(ctxt.constructType(String.class));
+        dates = ctxt.findRootValueDeserializer(ctxt.constructType(Date.class));
+        shipTypes = ctxt.findRootValueDeserializer(ctxt.constructType(ShipType.class));
+    }
+
+    @Override
+    public Ship deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) token = p.nextToken();
+        else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) return (Ship) ctxt.handleUnexpectedToken(Ship.class, p);
+
+        Ship ship = new Ship();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.getCurrentName();
+            token = p.nextToken();
+            boolean isNull = token == JsonToken.VALUE_NULL;
+            switch (field) {
+                case "id":
+                    ship.setId(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? (Long) p.getLongValue() : (Long) longs.deserialize(p, ctxt));
+                    break;
+                case "name":
+                    ship.setName(isNull ? null : token == JsonToken.VALUE_STRING ? p.getText() : (String) strings.deserialize(p, ctxt));
+                    break;
+                case "planet":
+                    ship.setPlanet(isNull ? null : token == JsonToken.VALUE_STRING ? p.getText() : (String) strings.deserialize(p, ctxt));
+                    break;
+                case "shipType":
+                    ship.setShipType(isNull ? null : (ShipType) shipTypes.deserialize(p, ctxt));
+                    break;
+                case "prodDate":
+                    ship.setProdDate(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? new Date(p.getLongValue()) : (Date) dates.deserialize(p, ctxt));
+                    break;
+                case "isUsed":
+                    ship.setUsed(isNull ? null : token == JsonToken.VALUE_TRUE ? Boolean.TRUE
+                            : token == JsonToken.VALUE_FALSE ? Boolean.FALSE : (Boolean) booleans.deserialize(p, ctxt));
+                    break;
+                case "speed":
+                    ship.setSpeed(isNull ? null : token.isNumeric() ? (Double) p.getDoubleValue() : (Double) doubles.deserialize(p, ctxt));
+                    break;
+                case "crewSize":
+                    ship.setCrewSize(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? (Integer) p.getIntValue() : (Integer) integers.deserialize(p, ctxt));
+                    break;
+                case "rating":
+                    ship.setRating(isNull ? null : token.isNumeric() ? (Double) p.getDoubleValue() : (Double) doubles.deserialize(p, ctxt));
+                    break;
+                case "version":
+                    p.skipChildren();
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, this, Ship.class, field);
+            }
+        }
+        return ship;
+    }
+}
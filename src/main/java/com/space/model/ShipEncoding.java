@@ -0,0 +1,21 @@
+package com.space.model;
+
+/**
+ * Encodings the ship endpoints speak, in order of preference: JSON text and the binary CBOR and Smile forms of the
+ * same data.
+ */
+public enum ShipEncoding {
+    JSON("application/json;charset=UTF-8"),
+    CBOR("application/cbor"),
+    SMILE("application/x-jackson-smile");
+
+    private final String contentType;
+
+    ShipEncoding(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,19 @@
+package com.space.model;
+
+/**
+ * Line-oriented formats for moving whole fleets in and out, one ship per line.
+ */
+public enum ShipFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv;charset=UTF-8");
+
+    private final String contentType;
+
+    ShipFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
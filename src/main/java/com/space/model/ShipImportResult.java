@@ -0,0 +1,55 @@
+package com.space.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShipImportResult {
+    // the report stays bounded however broken the input is; further errors are only counted
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private int imported;
+    private int rejected;
+    private List<LineError> errors = new ArrayList<>();
+
+    public void imported(int count) {
+        imported += count;
+    }
+
+    public void rejected(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new LineError(line, message));
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public static class LineError {
+        private long line;
+        private String message;
+
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public LineError() {
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
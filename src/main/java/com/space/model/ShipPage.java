@@ -0,0 +1,36 @@
+package com.space.model;
+
+import java.util.List;
+
+public class ShipPage {
+    private List<Ship> items;
+    private Integer total;
+    private int pageNumber;
+    private int pageSize;
+
+    public ShipPage(List<Ship> items, Integer total, int pageNumber, int pageSize) {
+        this.items = items;
+        this.total = total;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    public ShipPage() {
+    }
+
+    public List<Ship> getItems() {
+        return items;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
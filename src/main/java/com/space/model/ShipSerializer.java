@@ -0,0 +1,63 @@
+package com.space.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Ship} the way field-visibility Jackson does, without reflection: the fields in declaration order,
+ * nulls included, the production date as epoch millis and the version left out. Field names are encoded once.
+ */
+public class ShipSerializer extends StdSerializer<Ship> {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString PLANET = new SerializedString("planet");
+    private static final SerializedString SHIP_TYPE = new SerializedString("shipType");
+    private static final SerializedString PROD_DATE = new SerializedString("prodDate");
+    private static final SerializedString IS_USED = new SerializedString("isUsed");
+    private static final SerializedString SPEED = new SerializedString("speed");
+    private static final SerializedString CREW_SIZE = new SerializedString("crewSize");
+    private static final SerializedString RATING = new SerializedString("rating");
+
+    public ShipSerializer() {
+        super(Ship.class);
+    }
+
+    @Override
+    public void serialize(Ship ship, JsonGenerator json, SerializerProvider provider) throws IOException {
+        write(ship, json);
+    }
+
+    public static void write(Ship ship, JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeFieldName(ID);
+        if (ship.getId() == null) json.writeNull();
+        else json.writeNumber(ship.getId());
+        json.writeFieldName(NAME);
+        json.writeString(ship.getName());
+        json.writeFieldName(PLANET);
+        json.writeString(ship.getPlanet());
+        json.writeFieldName(SHIP_TYPE);
+        if (ship.getShipType() == null) json.writeNull();
+        else json.writeString(ship.getShipType().name());
+        json.writeFieldName(PROD_DATE);
+        if (ship.getProdDate() == null) json.writeNull();
+        else json.writeNumber(ship.getProdDate().getTime());
+        json.writeFieldName(IS_USED);
+        if (ship.isUsed() == null) json.writeNull();
+        else json.writeBoolean(ship.isUsed());
+        json.writeFieldName(SPEED);
+        if (ship.getSpeed() == null) json.writeNull();
+        else json.writeNumber(ship.getSpeed());
+        json.writeFieldName(CREW_SIZE);
+        if (ship.getCrewSize() == null) json.writeNull();
+        else json.writeNumber(ship.getCrewSize());
+        json.writeFieldName(RATING);
+        if (ship.getRating() == null) json.writeNull();
+        else json.writeNumber(ship.getRating());
+        json.writeEndObject();
+    }
+}
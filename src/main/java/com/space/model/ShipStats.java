@@ -0,0 +1,108 @@
+package com.space.model;
+
+import java.util.List;
+
+/**
+ * Aggregates of one group of ships; {@code key} is null when the fleet is not grouped.
+ */
+public class ShipStats {
+    private Object key;
+    private long count;
+    private Metric speed;
+    private Metric crewSize;
+    private Metric rating;
+
+    public ShipStats(Object key, long count, Metric speed, Metric crewSize, Metric rating) {
+        this.key = key;
+        this.count = count;
+        this.speed = speed;
+        this.crewSize = crewSize;
+        this.rating = rating;
+    }
+
+    public ShipStats() {
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Metric getSpeed() {
+        return speed;
+    }
+
+    public Metric getCrewSize() {
+        return crewSize;
+    }
+
+    public Metric getRating() {
+        return rating;
+    }
+
+    public static class Metric {
+        private Double min;
+        private Double max;
+        private Double avg;
+        private List<Bucket> histogram;
+
+        public Metric(Double min, Double max, Double avg, List<Bucket> histogram) {
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+            this.histogram = histogram;
+        }
+
+        public Metric() {
+        }
+
+        public Double getMin() {
+            return min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public Double getAvg() {
+            return avg;
+        }
+
+        public List<Bucket> getHistogram() {
+            return histogram;
+        }
+    }
+
+    /**
+     * Ships with {@code from <= value < to}; the last bucket of a histogram also holds {@code value == to}.
+     */
+    public static class Bucket {
+        private double from;
+        private double to;
+        private long count;
+
+        public Bucket(double from, double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public Bucket() {
+        }
+
+        public double getFrom() {
+            return from;
+        }
+
+        public double getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.space.model;
+
+/**
+ * What {@code GET /rest/ships/stats} splits the fleet by.
+ */
+public enum StatsGroup {
+    SHIP_TYPE, PLANET, IS_USED, PROD_YEAR, PROD_DECADE
+}
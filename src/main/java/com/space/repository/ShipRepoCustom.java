@@ -0,0 +1,31 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ShipRepoCustom {
+
+    /**
+     * Returns the requested slice of ships matching the specification, without the count query a {@code Page} needs.
+     */
+    List<Ship> findContent(Specification<Ship> specification, Pageable pageable);
+
+    long countMatching(Specification<Ship> specification);
+
+    /**
+     * Copies the non-null fields of {@code patch} to every matching ship and recomputes their rating,
+     * all in one UPDATE statement. Returns the number of updated rows.
+     */
+    int updateMatching(Specification<Ship> specification, Ship patch);
+
+    int deleteMatching(Specification<Ship> specification);
+
+    /**
+     * Inserts the ships with plain JDBC batches of {@code batchSize} statements and assigns the generated ids.
+     * Cached query results are dropped, since Hibernate does not see these inserts.
+     */
+    void insertAll(List<Ship> ships, int batchSize);
+}
@@ -0,0 +1,155 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.routing.ReplicaRoutingDataSource;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class ShipRepoImpl implements ShipRepoCustom {
+    private static final String INSERT = "INSERT INTO ship (name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Override
+    public List<Ship> findContent(Specification<Ship> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.orderBy(toOrders(pageable.getSort(), root, cb));
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setHint(QueryHints.HINT_CACHE_MODE, cacheMode())
+                .getResultList();
+    }
+
+    @Override
+    public long countMatching(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.select(cb.count(root));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setHint(QueryHints.HINT_CACHE_MODE, cacheMode())
+                .getSingleResult();
+    }
+
+    @Override
+    public int updateMatching(Specification<Ship> specification, Ship patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null) update.where(predicate);
+
+        if (patch.getName() != null) update.set(root.get("name"), patch.getName());
+        if (patch.getPlanet() != null) update.set(root.get("planet"), patch.getPlanet());
+        if (patch.getShipType() != null) update.set(root.get("shipType"), patch.getShipType());
+        if (patch.getProdDate() != null) update.set(root.get("prodDate"), patch.getProdDate());
+        if (patch.isUsed() != null) update.set(root.get("isUsed"), patch.isUsed());
+        if (patch.getSpeed() != null) update.set(root.get("speed"), patch.getSpeed());
+        if (patch.getCrewSize() != null) update.set(root.get("crewSize"), patch.getCrewSize());
+        update.set(root.<Double>get("rating"), rating(cb, root, patch));
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int deleteMatching(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null) delete.where(predicate);
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    @Override
+    public void insertAll(List<Ship> ships, int batchSize) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < ships.size(); from += batchSize) {
+                    List<Ship> batch = ships.subList(from, Math.min(from + batchSize, ships.size()));
+                    for (Ship ship : batch) {
+                        statement.setString(1, ship.getName());
+                        statement.setString(2, ship.getPlanet());
+                        statement.setString(3, ship.getShipType().name());
+                        statement.setTimestamp(4, new Timestamp(ship.getProdDate().getTime()));
+                        statement.setBoolean(5, ship.isUsed());
+                        statement.setDouble(6, ship.getSpeed());
+                        statement.setInt(7, ship.getCrewSize());
+                        if (ship.getRating() == null) statement.setNull(8, Types.DOUBLE);
+                        else statement.setDouble(8, ship.getRating());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Ship ship : batch) {
+                            keys.next();
+                            ship.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+        });
+        entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class).evictQueryRegions();
+    }
+
+    // what a replica returned is read from the caches but not put there: after the next write it would be taken for
+    // the primary's answer, and a lagging replica's answer is already older than that write
+    private CacheMode cacheMode() {
+        return routingDataSource.readsFromPrimary() ? CacheMode.NORMAL : CacheMode.GET;
+    }
+
+    // round(80 * (isUsed ? 0.5 : 1) * speed / (3019 - year + 1), 2), using the patched value where there is one
+    private static Expression<Double> rating(CriteriaBuilder cb, Root<Ship> root, Ship patch) {
+        Expression<Double> usedFactor = patch.isUsed() != null
+                ? cb.literal(patch.isUsed() ? 0.5 : 1.0)
+                : cb.<Double>selectCase().when(cb.isTrue(root.get("isUsed")), 0.5).otherwise(1.0);
+        Expression<Double> speed = patch.getSpeed() != null ? cb.literal(patch.getSpeed()) : root.get("speed");
+        Expression<Integer> year = patch.getProdDate() != null
+                ? cb.literal(patch.getProdDate().toInstant().atZone(ZoneId.systemDefault()).getYear())
+                : cb.function("year", Integer.class, root.get("prodDate"));
+        Expression<Number> rating = cb.quot(cb.prod(cb.prod(usedFactor, speed), 80.0), cb.diff(3020, year));
+        return cb.function("round", Double.class, rating, cb.literal(2));
+    }
+}
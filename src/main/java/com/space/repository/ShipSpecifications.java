@@ -0,0 +1,84 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the ship filter query from the criteria map produced by the controller.
+ * A predicate is emitted only for the keys that are present, always in the same order,
+ * so every combination of filters maps to exactly one SQL shape.
+ */
+public final class ShipSpecifications {
+
+    private ShipSpecifications() {
+    }
+
+    public static Specification<Ship> byCriteria(Map<String, Object> criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = toPredicates(criteria, root, cb);
+            return predicates.isEmpty() ? null : cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Ship> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Keyset condition for ships ordered by {@code sortField} and then by id, strictly after the given position.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Ship> after(String sortField, Comparable lastValue, Long lastId) {
+        return (root, query, cb) -> {
+            Predicate idAfter = cb.greaterThan(root.<Long>get("id"), lastId);
+            if ("id".equals(sortField)) return idAfter;
+            Path<Comparable> field = root.get(sortField);
+            return cb.or(cb.greaterThan(field, lastValue), cb.and(cb.equal(field, lastValue), idAfter));
+        };
+    }
+
+    static List<Predicate> toPredicates(Map<String, Object> criteria, Root<Ship> root, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.containsKey("name"))
+            predicates.add(contains(cb, root.get("name"), (String) criteria.get("name")));
+        if (criteria.containsKey("planet"))
+            predicates.add(contains(cb, root.get("planet"), (String) criteria.get("planet")));
+        if (criteria.containsKey("shipType"))
+            predicates.add(cb.equal(root.<ShipType>get("shipType"), criteria.get("shipType")));
+        if (criteria.containsKey("after"))
+            predicates.add(cb.greaterThanOrEqualTo(root.<Date>get("prodDate"), new Date((Long) criteria.get("after"))));
+        if (criteria.containsKey("before"))
+            predicates.add(cb.lessThanOrEqualTo(root.<Date>get("prodDate"), new Date((Long) criteria.get("before"))));
+        if (criteria.containsKey("isUsed"))
+            predicates.add(cb.equal(root.<Boolean>get("isUsed"), criteria.get("isUsed")));
+        if (criteria.containsKey("minSpeed"))
+            predicates.add(cb.greaterThanOrEqualTo(root.<Double>get("speed"), (Double) criteria.get("minSpeed")));
+        if (criteria.containsKey("maxSpeed"))
+            predicates.add(cb.lessThanOrEqualTo(root.<Double>get("speed"), (Double) criteria.get("maxSpeed")));
+        if (criteria.containsKey("minCrewSize"))
+            predicates.add(cb.greaterThanOrEqualTo(root.<Integer>get("crewSize"), (Integer) criteria.get("minCrewSize")));
+        if (criteria.containsKey("maxCrewSize"))
+            predicates.add(cb.lessThanOrEqualTo(root.<Integer>get("crewSize"), (Integer) criteria.get("maxCrewSize")));
+        if (criteria.containsKey("minRating"))
+            predicates.add(cb.greaterThanOrEqualTo(root.<Double>get("rating"), (Double) criteria.get("minRating")));
+        if (criteria.containsKey("maxRating"))
+            predicates.add(cb.lessThanOrEqualTo(root.<Double>get("rating"), (Double) criteria.get("maxRating")));
+        return predicates;
+    }
+
+    private static Predicate contains(CriteriaBuilder cb, Path<String> path, String value) {
+        return cb.like(path, "%" + EscapeCharacter.DEFAULT.escape(value) + "%", EscapeCharacter.DEFAULT.getEscapeCharacter());
+    }
+}
@@ -0,0 +1,105 @@
+package com.space.repository;
+
+import com.space.model.ShipType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plain SQL twin of {@link ShipSpecifications}, for read paths that bypass JPA.
+ * Conditions come in the same order and with the same semantics as the criteria predicates.
+ */
+public final class ShipSql {
+    public static final String COLUMNS = "id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating";
+
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("id", "speed", "prodDate", "rating", "crewSize"));
+
+    private ShipSql() {
+    }
+
+    /**
+     * SELECT of one page of ships matching the criteria and, when {@code ids} is not null, having one of those ids.
+     * The bind values are appended to {@code args}.
+     */
+    public static String selectPage(Map<String, Object> criteria, Collection<Long> ids, Pageable pageable, List<Object> args) {
+        String sql = select(criteria, ids, pageable.getSort(), args) + " LIMIT ? OFFSET ?";
+        args.add(pageable.getPageSize());
+        args.add(pageable.getOffset());
+        return sql;
+    }
+
+    public static String select(Map<String, Object> criteria, Collection<Long> ids, Sort sort, List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM ship").append(where(criteria, ids, args));
+
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty())) throw new IllegalArgumentException("Unsupported sort " + order.getProperty());
+            orders.add(order.getProperty() + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (!orders.isEmpty()) sql.append(" ORDER BY ").append(String.join(", ", orders));
+        return sql.toString();
+    }
+
+    /**
+     * WHERE clause, with a leading space, for the criteria and optional id set; empty when nothing is filtered.
+     */
+    public static String where(Map<String, Object> criteria, Collection<Long> ids, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (ids != null) {
+            conditions.add("id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")");
+            args.addAll(ids);
+        }
+        conditions.addAll(conditions(criteria, args));
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    static List<String> conditions(Map<String, Object> criteria, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (criteria.containsKey("name"))
+            conditions.add(contains("name", (String) criteria.get("name"), args));
+        if (criteria.containsKey("planet"))
+            conditions.add(contains("planet", (String) criteria.get("planet"), args));
+        if (criteria.containsKey("shipType"))
+            conditions.add(condition("shipType = ?", ((ShipType) criteria.get("shipType")).name(), args));
+        if (criteria.containsKey("after"))
+            conditions.add(condition("prodDate >= ?", new Timestamp((Long) criteria.get("after")), args));
+        if (criteria.containsKey("before"))
+            conditions.add(condition("prodDate <= ?", new Timestamp((Long) criteria.get("before")), args));
+        if (criteria.containsKey("isUsed"))
+            conditions.add(condition("isUsed = ?", criteria.get("isUsed"), args));
+        if (criteria.containsKey("minSpeed"))
+            conditions.add(condition("speed >= ?", criteria.get("minSpeed"), args));
+        if (criteria.containsKey("maxSpeed"))
+            conditions.add(condition("speed <= ?", criteria.get("maxSpeed"), args));
+        if (criteria.containsKey("minCrewSize"))
+            conditions.add(condition("crewSize >= ?", criteria.get("minCrewSize"), args));
+        if (criteria.containsKey("maxCrewSize"))
+            conditions.add(condition("crewSize <= ?", criteria.get("maxCrewSize"), args));
+        if (criteria.containsKey("minRating"))
+            conditions.add(condition("rating >= ?", criteria.get("minRating"), args));
+        if (criteria.containsKey("maxRating"))
+            conditions.add(condition("rating <= ?", criteria.get("maxRating"), args));
+        return conditions;
+    }
+
+    private static String condition(String condition, Object value, List<Object> args) {
+        args.add(value);
+        return condition;
+    }
+
+    private static String contains(String column, String value, List<Object> args) {
+        args.add("%" + EscapeCharacter.DEFAULT.escape(value) + "%");
+        args.add(String.valueOf(EscapeCharacter.DEFAULT.getEscapeCharacter()));
+        return column + " LIKE ? ESCAPE ?";
+    }
+}
@@ -0,0 +1,132 @@
+package com.space.resource;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceTransformer;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Gives a resource requested by its content-versioned URL a {@code Cache-Control} of its own, overriding the handler's,
+ * which then only applies to plain paths: a versioned URL names one content for good, the plain path of a file does
+ * not, so the versioned one is also marked {@code immutable} and browsers skip revalidating it on reload. A
+ * transformer rather than a resolver, so that it wraps what the other transformers make of the resource; it must come
+ * before them in the chain.
+ */
+public class VersionedCacheTransformer implements ResourceTransformer {
+    private final String cacheControl;
+
+    // CacheControl has no immutable directive in this Spring version, so it goes on the header value
+    public VersionedCacheTransformer(CacheControl cacheControl) {
+        this.cacheControl = cacheControl.getHeaderValue() + ", immutable";
+    }
+
+    @Override
+    public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain) throws IOException {
+        Resource transformed = chain.transform(request, resource);
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        // found under another name than the one asked for: the version resolver took a version off the URL
+        if (path == null || StringUtils.getFilename(path).equals(resource.getFilename())) return transformed;
+        return new VersionedResource(transformed, cacheControl);
+    }
+
+    // the transformed resource as it is, with the headers it already carries and the Cache-Control of a versioned URL
+    private static final class VersionedResource implements HttpResource {
+        private final Resource resource;
+        private final String cacheControl;
+
+        VersionedResource(Resource resource, String cacheControl) {
+            this.resource = resource;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (resource instanceof HttpResource) headers.putAll(((HttpResource) resource).getResponseHeaders());
+            headers.setCacheControl(cacheControl);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() {
+            return resource.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return resource.isReadable();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return resource.isOpen();
+        }
+
+        @Override
+        public boolean isFile() {
+            return resource.isFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return resource.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return resource.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return resource.getFile();
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return resource.readableChannel();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return resource.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return resource.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return resource.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() {
+            return resource.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return resource.getDescription();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return resource.getInputStream();
+        }
+    }
+}
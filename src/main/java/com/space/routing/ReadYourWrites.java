@@ -0,0 +1,43 @@
+package com.space.routing;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Marks the current thread as pinned to the primary database, for clients that have written recently
+ * and must see their own writes regardless of replica lag.
+ */
+public final class ReadYourWrites {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * Carries the pin of the submitting thread over to tasks run on an executor.
+     */
+    public static TaskDecorator propagating() {
+        return task -> {
+            boolean pinned = isPinned();
+            return () -> {
+                if (pinned) pin();
+                try {
+                    task.run();
+                } finally {
+                    if (pinned) clear();
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ * It has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    public static final String PRIMARY = "primary";
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    private final List<DataSource> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Selection selection) {
+        this.replicas = new ArrayList<>(replicas);
+        this.selection = selection;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Whether a read-only transaction started now reads from the primary: always without replicas, otherwise only for
+     * a pinned client. What other reads return may lag writes the primary has already committed.
+     */
+    public boolean readsFromPrimary() {
+        return replicas.isEmpty() || ReadYourWrites.isPinned();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readsFromPrimary() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return PRIMARY;
+        return selection == Selection.LEAST_LOADED ? leastLoaded() : Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    // fewest borrowed connections wins, ties go round-robin; pools other than Hikari count as idle
+    private int leastLoaded() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        int best = start;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            int active = activeConnections(replicas.get(candidate));
+            if (active < bestActive) {
+                best = candidate;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource && ((HikariDataSource) dataSource).getHikariPoolMXBean() != null)
+            return ((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections();
+        return 0;
+    }
+
+    /**
+     * Closes the replica pools; the primary is managed by its own bean.
+     */
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) replica).close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+}
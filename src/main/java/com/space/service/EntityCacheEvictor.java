@@ -0,0 +1,24 @@
+package com.space.service;
+
+import com.space.event.FleetChangedEvent;
+import org.hibernate.Cache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+/**
+ * Drops every second-level cache region when the ship table changed outside of Hibernate.
+ */
+@Component
+public class EntityCacheEvictor {
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @EventListener
+    public void onFleetChanged(FleetChangedEvent event) {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+}
@@ -0,0 +1,82 @@
+package com.space.service;
+
+import com.space.event.FleetChangedEvent;
+import com.space.model.ShipType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Write generation of the fleet: a global counter and one per ship type, advanced by every write. Anything derived
+ * from a read stays valid while the generation taken before the read is unchanged. Writes advance the counters at
+ * once and again when their transaction completes, so a read that saw the fleet before the commit is never stamped
+ * with the generation after it.
+ */
+@Component
+public class FleetGeneration {
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    // tells the counters of this run apart from those of earlier runs or other instances
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final boolean perShipType;
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLongArray byShipType = new AtomicLongArray(SHIP_TYPES.length);
+
+    @Autowired
+    public FleetGeneration(@Value("${cache.filter.perShipType:true}") boolean perShipType) {
+        this.perShipType = perShipType;
+    }
+
+    public long current() {
+        return global.get();
+    }
+
+    /**
+     * The generation results for these criteria depend on: the ship type's own one when the criteria fix a ship type,
+     * the global one otherwise.
+     */
+    public long current(Map<String, Object> criteria) {
+        ShipType shipType = (ShipType) criteria.get("shipType");
+        return perShipType && shipType != null ? byShipType.get(shipType.ordinal()) : global.get();
+    }
+
+    /**
+     * An opaque version of the results for these criteria, for use as an entity tag.
+     */
+    public String version(Map<String, Object> criteria) {
+        return epoch + "-" + current(criteria);
+    }
+
+    /**
+     * Records a write to ships of the given types, before and after the change; a null type only counts globally.
+     */
+    public void advance(ShipType... shipTypes) {
+        increment(shipTypes);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                increment(shipTypes);
+            }
+        });
+    }
+
+    @EventListener
+    public void onFleetChanged(FleetChangedEvent event) {
+        advance(SHIP_TYPES);
+    }
+
+    private void increment(ShipType[] shipTypes) {
+        global.incrementAndGet();
+        for (ShipType shipType : shipTypes) {
+            if (shipType != null) byShipType.incrementAndGet(shipType.ordinal());
+        }
+    }
+}
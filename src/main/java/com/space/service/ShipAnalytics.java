@@ -0,0 +1,168 @@
+package com.space.service;
+
+import com.space.model.ShipStats;
+import com.space.model.StatsGroup;
+import com.space.repository.ShipSql;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fleet aggregates computed by the database: one GROUP BY query for count, min, max and avg of every metric,
+ * then one GROUP BY query per metric for its histogram. Only the aggregated rows reach the JVM.
+ * Histogram buckets span the metric's range over the whole filtered fleet, so groups can be compared bucket by bucket.
+ */
+@Component
+public class ShipAnalytics {
+    private static final String[] METRICS = {"speed", "crewSize", "rating"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ShipAnalytics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ShipStats> stats(Map<String, Object> criteria, Collection<Long> ids, StatsGroup groupBy, int buckets) {
+        String group = groupExpression(groupBy);
+        List<Object> args = new ArrayList<>();
+        String where = ids != null && ids.isEmpty() ? " WHERE 1 = 0" : ShipSql.where(criteria, ids, args);
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(group).append(" AS grp, COUNT(*) AS cnt");
+        for (String metric : METRICS) {
+            sql.append(", MIN(").append(metric).append("), MAX(").append(metric).append("), AVG(").append(metric).append(" * 1.0)");
+        }
+        sql.append(" FROM ship").append(where);
+        if (groupBy != null) sql.append(" GROUP BY ").append(group).append(" ORDER BY grp");
+
+        List<Aggregate> aggregates = jdbcTemplate.query(sql.toString(), args.toArray(), (rs, rowNum) -> {
+            Aggregate aggregate = new Aggregate(key(rs, groupBy), rs.getLong("cnt"));
+            for (int i = 0; i < METRICS.length; i++) {
+                aggregate.min[i] = nullableDouble(rs, 3 + 3 * i);
+                aggregate.max[i] = nullableDouble(rs, 4 + 3 * i);
+                aggregate.avg[i] = nullableDouble(rs, 5 + 3 * i);
+            }
+            return aggregate;
+        });
+
+        List<Map<Object, List<ShipStats.Bucket>>> histograms = new ArrayList<>();
+        for (int i = 0; i < METRICS.length; i++) {
+            histograms.add(histograms(METRICS[i], i, aggregates, group, groupBy, where, args, buckets));
+        }
+
+        List<ShipStats> stats = new ArrayList<>(aggregates.size());
+        for (Aggregate aggregate : aggregates) {
+            ShipStats.Metric[] metrics = new ShipStats.Metric[METRICS.length];
+            for (int i = 0; i < METRICS.length; i++) {
+                metrics[i] = new ShipStats.Metric(aggregate.min[i], aggregate.max[i], aggregate.avg[i],
+                        histograms.get(i).getOrDefault(aggregate.key, new ArrayList<>()));
+            }
+            stats.add(new ShipStats(aggregate.key, aggregate.count, metrics[0], metrics[1], metrics[2]));
+        }
+        return stats;
+    }
+
+    private Map<Object, List<ShipStats.Bucket>> histograms(String metric, int index, List<Aggregate> aggregates, String group,
+                                                           StatsGroup groupBy, String where, List<Object> args, int buckets) {
+        Double min = null;
+        Double max = null;
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.min[index] != null && (min == null || aggregate.min[index] < min)) min = aggregate.min[index];
+            if (aggregate.max[index] != null && (max == null || aggregate.max[index] > max)) max = aggregate.max[index];
+        }
+        Map<Object, List<ShipStats.Bucket>> histograms = new HashMap<>();
+        if (min == null) return histograms;
+
+        int count = max > min ? buckets : 1;
+        double width = max > min ? (max - min) / buckets : 0;
+        // literals rather than parameters, so the GROUP BY expression is textually the selected one
+        String bucket = count == 1 ? "0" : "LEAST(FLOOR((" + metric + " - " + literal(min) + ") / " + literal(width) + "), " + (count - 1) + ")";
+        String sql = "SELECT " + group + " AS grp, " + bucket + " AS bucket, COUNT(*) AS cnt FROM ship" + where
+                + (where.isEmpty() ? " WHERE " : " AND ") + metric + " IS NOT NULL"
+                + " GROUP BY " + (groupBy != null ? group + ", " : "") + bucket;
+
+        for (Aggregate aggregate : aggregates) {
+            List<ShipStats.Bucket> histogram = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                histogram.add(null);
+            }
+            histograms.put(aggregate.key, histogram);
+        }
+        Map<Object, long[]> counts = new HashMap<>();
+        jdbcTemplate.query(sql, args.toArray(), rs -> {
+            counts.computeIfAbsent(key(rs, groupBy), key -> new long[count])[rs.getInt("bucket")] = rs.getLong("cnt");
+        });
+        for (Map.Entry<Object, List<ShipStats.Bucket>> entry : histograms.entrySet()) {
+            long[] groupCounts = counts.getOrDefault(entry.getKey(), new long[count]);
+            for (int i = 0; i < count; i++) {
+                double from = min + i * width;
+                entry.getValue().set(i, new ShipStats.Bucket(from, i == count - 1 ? max : from + width, groupCounts[i]));
+            }
+        }
+        return histograms;
+    }
+
+    private static String groupExpression(StatsGroup groupBy) {
+        if (groupBy == null) return "NULL";
+        switch (groupBy) {
+            case SHIP_TYPE:
+                return "shipType";
+            case PLANET:
+                return "planet";
+            case IS_USED:
+                return "isUsed";
+            case PROD_YEAR:
+                return "YEAR(prodDate)";
+            case PROD_DECADE:
+                return "FLOOR(YEAR(prodDate) / 10) * 10";
+            default:
+                throw new IllegalArgumentException(groupBy.name());
+        }
+    }
+
+    private static Object key(ResultSet rs, StatsGroup groupBy) throws SQLException {
+        if (groupBy == null) return null;
+        switch (groupBy) {
+            case IS_USED:
+                boolean isUsed = rs.getBoolean("grp");
+                return rs.wasNull() ? null : isUsed;
+            case PROD_YEAR:
+            case PROD_DECADE:
+                int year = rs.getInt("grp");
+                return rs.wasNull() ? null : year;
+            default:
+                return rs.getString("grp");
+        }
+    }
+
+    private static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static String literal(double value) {
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    private static class Aggregate {
+        private final Object key;
+        private final long count;
+        private final Double[] min = new Double[METRICS.length];
+        private final Double[] max = new Double[METRICS.length];
+        private final Double[] avg = new Double[METRICS.length];
+
+        Aggregate(Object key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
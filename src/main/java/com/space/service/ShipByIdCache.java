@@ -0,0 +1,83 @@
+package com.space.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.space.event.FleetChangedEvent;
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Size-bounded W-TinyLFU cache of ships by id in front of {@code ShipService.findById}, so hot ships skip the
+ * transaction, the persistence context and the second-level cache. Concurrent misses on one id share a single load.
+ * Invalidation happens at once and again when the writing transaction completes, so a read racing the commit cannot
+ * put the old row back.
+ */
+@Component
+public class ShipByIdCache {
+    private final Cache<Long, Ship> cache;
+
+    @Autowired
+    public ShipByIdCache(@Value("${cache.shipById.maxEntries:10000}") long maxEntries,
+                         @Value("${cache.shipById.ttlSeconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The cached ship, or the one {@code loader} returns; a {@code null} result is not cached.
+     */
+    public Ship get(Long id, Function<Long, Ship> loader) {
+        return cache.get(id, loader);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        afterCompletion(() -> cache.invalidate(id));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        afterCompletion(cache::invalidateAll);
+    }
+
+    @EventListener
+    public void onFleetChanged(FleetChangedEvent event) {
+        invalidateAll();
+    }
+
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", cache.estimatedSize());
+        snapshot.put("hits", stats.hitCount());
+        snapshot.put("misses", stats.missCount());
+        snapshot.put("hitRatio", stats.hitRate());
+        snapshot.put("loads", stats.loadCount());
+        snapshot.put("evictions", stats.evictionCount());
+        return snapshot;
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
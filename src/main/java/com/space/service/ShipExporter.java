@@ -0,0 +1,124 @@
+package com.space.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.space.model.ShipFormat;
+import com.space.repository.ShipSql;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams every matching ship, in id order, through a forward-only cursor. Rows are written as they are fetched,
+ * so memory use does not depend on the size of the export.
+ */
+@Component
+public class ShipExporter {
+    public static final String CSV_HEADER = "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating";
+
+    private static final JsonFactory JSON = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ShipExporter(JdbcTemplate jdbcTemplate, @Value("${db.export.fetchSize:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public void export(Map<String, Object> criteria, Collection<Long> ids, ShipFormat format, OutputStream out) throws IOException {
+        if (format == ShipFormat.CSV) writeCsv(criteria, ids, out);
+        else writeNdjson(criteria, ids, out);
+    }
+
+    private void writeNdjson(Map<String, Object> criteria, Collection<Long> ids, OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            query(criteria, ids, rs -> {
+                try {
+                    ShipJsonStreamer.writeShip(rs, json);
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(Map<String, Object> criteria, Collection<Long> ids, OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(CSV_HEADER);
+        csv.write("\r\n");
+        query(criteria, ids, rs -> {
+            try {
+                writeCsvRow(rs, csv);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        csv.flush();
+    }
+
+    // an empty id set means the indexes already ruled every ship out
+    private void query(Map<String, Object> criteria, Collection<Long> ids, RowCallbackHandler handler) throws IOException {
+        if (ids != null && ids.isEmpty()) return;
+        List<Object> args = new ArrayList<>();
+        String sql = ShipSql.select(criteria, ids, Sort.by("id"), args);
+        try {
+            jdbcTemplate.query(sql, args.toArray(), handler);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeCsvRow(ResultSet rs, Writer csv) throws SQLException, IOException {
+        csv.write(String.valueOf(rs.getLong("id")));
+        csv.write(',');
+        csv.write(quote(rs.getString("name")));
+        csv.write(',');
+        csv.write(quote(rs.getString("planet")));
+        csv.write(',');
+        csv.write(quote(rs.getString("shipType")));
+        csv.write(',');
+        Timestamp prodDate = rs.getTimestamp("prodDate");
+        if (prodDate != null) csv.write(String.valueOf(prodDate.getTime()));
+        csv.write(',');
+        boolean isUsed = rs.getBoolean("isUsed");
+        if (!rs.wasNull()) csv.write(String.valueOf(isUsed));
+        csv.write(',');
+        double speed = rs.getDouble("speed");
+        if (!rs.wasNull()) csv.write(String.valueOf(speed));
+        csv.write(',');
+        int crewSize = rs.getInt("crewSize");
+        if (!rs.wasNull()) csv.write(String.valueOf(crewSize));
+        csv.write(',');
+        double rating = rs.getDouble("rating");
+        if (!rs.wasNull()) csv.write(String.valueOf(rating));
+        csv.write("\r\n");
+    }
+
+    // RFC 4180: quoted only when needed, embedded quotes doubled
+    private static String quote(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
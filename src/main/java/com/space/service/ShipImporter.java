@@ -0,0 +1,238 @@
+package com.space.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipFormat;
+import com.space.model.ShipImportResult;
+import com.space.model.ShipType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads ships from an NDJSON or CSV stream one record at a time and creates them in chunks of {@code chunkSize},
+ * each chunk in its own {@link ShipService#createShips} transaction. Only the current chunk is held in memory,
+ * and the next records are not read before the previous chunk is committed.
+ */
+@Component
+public class ShipImporter {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ShipService shipService;
+    private final int chunkSize;
+
+    @Autowired
+    public ShipImporter(ShipService shipService, @Value("${db.import.chunkSize:500}") int chunkSize) {
+        this.shipService = shipService;
+        this.chunkSize = chunkSize;
+    }
+
+    public ShipImportResult importShips(InputStream in, ShipFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RecordReader records = format == ShipFormat.CSV ? new CsvReader(reader) : new NdjsonReader(reader);
+        ShipImportResult result = new ShipImportResult();
+
+        List<Ship> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        while (records.next()) {
+            Ship ship;
+            try {
+                ship = records.ship();
+            } catch (IllegalArgumentException e) {
+                result.rejected(records.line(), "malformed record: " + e.getMessage());
+                continue;
+            }
+            chunk.add(ship);
+            chunkLines.add(records.line());
+            if (chunk.size() == chunkSize) flush(chunk, chunkLines, result);
+        }
+        if (!chunk.isEmpty()) flush(chunk, chunkLines, result);
+        return result;
+    }
+
+    private void flush(List<Ship> chunk, List<Long> chunkLines, ShipImportResult result) {
+        ShipBatchResult created = shipService.createShips(chunk);
+        result.imported(created.getCreated());
+        for (ShipBatchResult.Item item : created.getItems()) {
+            if (item.getStatus() == ShipBatchResult.Status.REJECTED) result.rejected(chunkLines.get(item.getIndex()), "invalid ship");
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private interface RecordReader {
+        boolean next() throws IOException;
+
+        // line the current record starts on, counting from 1
+        long line();
+
+        Ship ship();
+    }
+
+    private static class NdjsonReader implements RecordReader {
+        private final BufferedReader reader;
+        private long line;
+        private String current;
+
+        NdjsonReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            do {
+                current = reader.readLine();
+                line++;
+            } while (current != null && current.trim().isEmpty());
+            return current != null;
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public Ship ship() {
+            JsonNode node;
+            try {
+                node = JSON.readTree(current);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("not a JSON object");
+            }
+            if (node == null || !node.isObject()) throw new IllegalArgumentException("not a JSON object");
+            Map<String, String> fields = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                if (!field.getValue().isNull()) fields.put(field.getKey(), field.getValue().asText());
+            });
+            return toShip(fields);
+        }
+    }
+
+    // RFC 4180 records, mapped to fields by the header row; quoted values may span lines
+    private static class CsvReader implements RecordReader {
+        private final BufferedReader reader;
+        private List<String> header;
+        private List<String> current;
+        private long line = 1;
+        private long recordLine;
+        private boolean unterminated;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (header == null) {
+                header = readRecord();
+                if (header == null) return false;
+            }
+            do {
+                recordLine = line;
+                current = readRecord();
+            } while (current != null && current.size() == 1 && current.get(0).isEmpty());
+            return current != null;
+        }
+
+        @Override
+        public long line() {
+            return recordLine;
+        }
+
+        @Override
+        public Ship ship() {
+            if (unterminated) throw new IllegalArgumentException("unterminated quoted field");
+            if (current.size() != header.size()) throw new IllegalArgumentException("expected " + header.size() + " fields");
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                if (!current.get(i).isEmpty()) fields.put(header.get(i).trim(), current.get(i));
+            }
+            return toShip(fields);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c < 0) return null;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted && c < 0) {
+                    unterminated = true;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c < 0 || c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == '\r') {
+                    // dropped; the following \n ends the record
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+
+    // id and rating are ignored, so an export can be imported as is
+    private static Ship toShip(Map<String, String> fields) {
+        Ship ship = new Ship();
+        ship.setName(fields.get("name"));
+        ship.setPlanet(fields.get("planet"));
+        ship.setShipType(value(fields, "shipType", ShipType::valueOf));
+        ship.setProdDate(value(fields, "prodDate", millis -> new Date(Long.parseLong(millis))));
+        ship.setUsed(value(fields, "isUsed", ShipImporter::parseBoolean));
+        ship.setSpeed(value(fields, "speed", Double::valueOf));
+        ship.setCrewSize(value(fields, "crewSize", Integer::valueOf));
+        return ship;
+    }
+
+    private static <T> T value(Map<String, String> fields, String name, Function<String, T> parser) {
+        String value = fields.get(name);
+        if (value == null) return null;
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("bad " + name);
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (!value.equals("true") && !value.equals("false")) throw new IllegalArgumentException();
+        return Boolean.valueOf(value);
+    }
+}
@@ -0,0 +1,121 @@
+package com.space.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.model.Ship;
+import com.space.model.ShipEncoding;
+import com.space.model.ShipSerializer;
+import com.space.repository.ShipSql;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes ships straight from the result set, or from ships the columnar engine built, to JSON, CBOR or Smile without
+ * Jackson data binding. The output matches what Jackson produces for a list of {@link Ship}: the same fields in
+ * declaration order, dates as epoch millis.
+ */
+@Component
+public class ShipJsonStreamer {
+    private static final Map<ShipEncoding, JsonFactory> FACTORIES = new EnumMap<>(ShipEncoding.class);
+
+    static {
+        FACTORIES.put(ShipEncoding.JSON, new JsonFactory());
+        FACTORIES.put(ShipEncoding.CBOR, new CBORFactory());
+        FACTORIES.put(ShipEncoding.SMILE, new SmileFactory());
+        for (JsonFactory factory : FACTORIES.values()) factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ShipJsonStreamer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams one page of the matching ships and returns their ids in the order written.
+     */
+    public List<Long> writePage(Map<String, Object> criteria, Collection<Long> ids, Pageable pageable, ShipEncoding encoding, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = ShipSql.selectPage(criteria, ids, pageable, args);
+        List<Long> written = new ArrayList<>();
+        try (JsonGenerator json = FACTORIES.get(encoding).createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            jdbcTemplate.query(sql, args.toArray(), rs -> {
+                try {
+                    writeShip(rs, json);
+                    written.add(rs.getLong("id"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return written;
+    }
+
+    public void writeShips(List<Ship> ships, ShipEncoding encoding, OutputStream out) throws IOException {
+        try (JsonGenerator json = FACTORIES.get(encoding).createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (Ship ship : ships) {
+                ShipSerializer.write(ship, json);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    public void writeEmpty(ShipEncoding encoding, OutputStream out) throws IOException {
+        try (JsonGenerator json = FACTORIES.get(encoding).createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            json.writeEndArray();
+        }
+    }
+
+    static void writeShip(ResultSet rs, JsonGenerator json) throws SQLException, IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", rs.getLong("id"));
+        json.writeStringField("name", rs.getString("name"));
+        json.writeStringField("planet", rs.getString("planet"));
+        json.writeStringField("shipType", rs.getString("shipType"));
+        Timestamp prodDate = rs.getTimestamp("prodDate");
+        json.writeFieldName("prodDate");
+        if (prodDate == null) json.writeNull();
+        else json.writeNumber(prodDate.getTime());
+        boolean isUsed = rs.getBoolean("isUsed");
+        json.writeFieldName("isUsed");
+        if (rs.wasNull()) json.writeNull();
+        else json.writeBoolean(isUsed);
+        writeDouble(json, "speed", rs.getDouble("speed"), rs.wasNull());
+        int crewSize = rs.getInt("crewSize");
+        json.writeFieldName("crewSize");
+        if (rs.wasNull()) json.writeNull();
+        else json.writeNumber(crewSize);
+        writeDouble(json, "rating", rs.getDouble("rating"), rs.wasNull());
+        json.writeEndObject();
+    }
+
+    private static void writeDouble(JsonGenerator json, String field, double value, boolean isNull) throws IOException {
+        json.writeFieldName(field);
+        if (isNull) json.writeNull();
+        else json.writeNumber(value);
+    }
+}
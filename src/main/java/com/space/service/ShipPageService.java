@@ -0,0 +1,49 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Answers a page and its total in one call. The content and count queries run concurrently on the query executor,
+ * each in its own {@link ShipService} transaction and therefore on its own connection.
+ */
+@Service
+public class ShipPageService {
+
+    private final ShipService shipService;
+    private final Executor queryExecutor;
+
+    @Autowired
+    public ShipPageService(ShipService shipService, @Qualifier("queryExecutor") Executor queryExecutor) {
+        this.shipService = shipService;
+        this.queryExecutor = queryExecutor;
+    }
+
+    public ShipPage getPage(Map<String, Object> parametersToSearch, Pageable pageable, boolean withCount) {
+        CompletableFuture<List<Ship>> items = CompletableFuture.supplyAsync(() -> shipService.getShips(parametersToSearch, pageable), queryExecutor);
+        CompletableFuture<Integer> total = withCount
+                ? CompletableFuture.supplyAsync(() -> shipService.getCount(parametersToSearch), queryExecutor)
+                : CompletableFuture.completedFuture(null);
+
+        return new ShipPage(join(items), join(total), pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.space.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Results of filter queries keyed by the criteria, in key order, and the page. Pages are kept as ship ids only, to be
+ * hydrated from the entity caches. An entry is served only while the {@link FleetGeneration} it was stamped with is
+ * current, so writes invalidate without touching the cache.
+ */
+@Component
+public class ShipResultCache {
+    private final FleetGeneration fleetGeneration;
+    private final Cache<Key, Entry> cache;
+
+    @Autowired
+    public ShipResultCache(FleetGeneration fleetGeneration, @Value("${cache.filter.maxEntries:1000}") long maxEntries) {
+        this.fleetGeneration = fleetGeneration;
+        this.cache = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+    }
+
+    /**
+     * The generation to stamp a result with; take it before running the query.
+     */
+    public long stamp(Map<String, Object> criteria) {
+        return fleetGeneration.current(criteria);
+    }
+
+    public Integer getCount(Map<String, Object> criteria) {
+        return (Integer) get(new Key(criteria, null), criteria);
+    }
+
+    public void putCount(Map<String, Object> criteria, long stamp, int count) {
+        cache.put(new Key(criteria, null), new Entry(stamp, count));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Long> getIds(Map<String, Object> criteria, Pageable pageable) {
+        return (List<Long>) get(new Key(criteria, pageable), criteria);
+    }
+
+    public void putIds(Map<String, Object> criteria, Pageable pageable, long stamp, List<Long> ids) {
+        cache.put(new Key(criteria, pageable), new Entry(stamp, Collections.unmodifiableList(ids)));
+    }
+
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", cache.estimatedSize());
+        snapshot.put("hits", stats.hitCount());
+        snapshot.put("misses", stats.missCount());
+        snapshot.put("hitRatio", stats.hitRate());
+        snapshot.put("evictions", stats.evictionCount());
+        return snapshot;
+    }
+
+    private Object get(Key key, Map<String, Object> criteria) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) return null;
+        if (entry.stamp == fleetGeneration.current(criteria)) return entry.value;
+        cache.invalidate(key);
+        return null;
+    }
+
+    private static final class Key {
+        private final Map<String, Object> criteria;
+        private final Pageable pageable;
+
+        Key(Map<String, Object> criteria, Pageable pageable) {
+            this.criteria = new TreeMap<>(criteria);
+            this.pageable = pageable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return criteria.equals(key.criteria) && Objects.equals(pageable, key.pageable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(criteria, pageable);
+        }
+    }
+
+    private static final class Entry {
+        private final long stamp;
+        private final Object value;
+
+        Entry(long stamp, Object value) {
+            this.stamp = stamp;
+            this.value = value;
+        }
+    }
+}
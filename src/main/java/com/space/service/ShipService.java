@@ -1,17 +1,46 @@
 package com.space.service;
 
+import com.space.event.FleetChangedEvent;
+import com.space.event.ShipDeletedEvent;
+import com.space.event.ShipSavedEvent;
 import com.space.exception.BadRequestException;
+import com.space.exception.ConflictException;
 import com.space.exception.NotFoundException;
+import com.space.exception.PreconditionFailedException;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipEncoding;
+import com.space.model.ShipFormat;
+import com.space.model.ShipStats;
 import com.space.model.ShipType;
+import com.space.model.StatsGroup;
 import com.space.repository.ShipRepo;
+import com.space.repository.ShipSpecifications;
+import com.space.routing.ReplicaRoutingDataSource;
+import com.space.service.index.BitmapIndex;
+import com.space.service.index.ColumnarFleet;
+import com.space.service.index.Leaderboard;
+import com.space.service.index.TrigramIndex;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
@@ -20,164 +49,405 @@ import java.util.*;
 @Transactional
 public class ShipService {
 
+    private static final int MAX_CANDIDATES = 1000;
+    private static final int MAX_BUCKETS = 100;
+    private static final int MAX_TOP = 1000;
+
     private ShipRepo shipRepo;
+    private TrigramIndex trigramIndex;
+    private BitmapIndex bitmapIndex;
+    private ApplicationEventPublisher eventPublisher;
+    private ShipJsonStreamer shipJsonStreamer;
+    private ShipExporter shipExporter;
+    private ShipAnalytics shipAnalytics;
+    private ColumnarFleet columnarFleet;
+    private Leaderboard leaderboard;
+    private ShipByIdCache shipByIdCache;
+    private ShipResultCache shipResultCache;
+    private FleetGeneration fleetGeneration;
+    private ReplicaRoutingDataSource routingDataSource;
+    private TransactionTemplate primaryReads;
+
+    @Value("${db.batch.size:500}")
+    private int batchSize;
 
     @Autowired
-    public ShipService(ShipRepo shipRepo) {
+    public ShipService(ShipRepo shipRepo, TrigramIndex trigramIndex, BitmapIndex bitmapIndex, ApplicationEventPublisher eventPublisher,
+                       ShipJsonStreamer shipJsonStreamer, ShipExporter shipExporter, ShipAnalytics shipAnalytics, ColumnarFleet columnarFleet, Leaderboard leaderboard,
+                       ShipByIdCache shipByIdCache, ShipResultCache shipResultCache, FleetGeneration fleetGeneration,
+                       ReplicaRoutingDataSource routingDataSource, PlatformTransactionManager transactionManager) {
         this.shipRepo = shipRepo;
+        this.trigramIndex = trigramIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.eventPublisher = eventPublisher;
+        this.shipJsonStreamer = shipJsonStreamer;
+        this.shipExporter = shipExporter;
+        this.shipAnalytics = shipAnalytics;
+        this.columnarFleet = columnarFleet;
+        this.leaderboard = leaderboard;
+        this.shipByIdCache = shipByIdCache;
+        this.shipResultCache = shipResultCache;
+        this.fleetGeneration = fleetGeneration;
+        this.routingDataSource = routingDataSource;
+        // a read-write transaction of its own is always routed to the primary
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
+    @Transactional(readOnly = true)
     public Ship findById(Long id){
         if(id <= 0) throw new BadRequestException();
-        return shipRepo.findById(id).orElseThrow(NotFoundException::new);
+        Ship ship = shipByIdCache.get(id, this::loadShip);
+        if(ship == null) throw new NotFoundException();
+        return ship;
     }
 
     public Ship createNewShip(String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize) {
-        if(name.length() > 50 || planet.length() > 50 || name.isEmpty() || planet.isEmpty() ||
-                 crewSize < 0 || crewSize > 9999) throw new BadRequestException();
+        Ship saved = shipRepo.save(newShip(name, planet, shipType, prodDate, isUsed, speed, crewSize));
+        fleetGeneration.advance(saved.getShipType());
+        eventPublisher.publishEvent(new ShipSavedEvent(saved));
+        return saved;
+    }
 
-        if((Math.round(speed * 100) / 100.0) < 0.1 || (Math.round(speed * 100) / 100.0) > 0.99)
-            throw new BadRequestException();
+    /**
+     * Validates every ship like {@link #createNewShip} and inserts the valid ones in JDBC batches.
+     * Invalid ships are reported as rejected and do not stop the rest of the batch.
+     */
+    public ShipBatchResult createShips(List<Ship> ships) {
+        if (ships == null || ships.isEmpty()) throw new BadRequestException();
 
-        LocalDate localDate = prodDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        int year  = localDate.getYear();
-        if(year < 2800 || year > 3019)
-            throw new BadRequestException();
+        List<Ship> valid = new ArrayList<>(ships.size());
+        boolean[] rejected = new boolean[ships.size()];
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            try {
+                if (ship == null || ship.getName() == null || ship.getPlanet() == null || ship.getShipType() == null ||
+                        ship.getProdDate() == null || ship.getSpeed() == null || ship.getCrewSize() == null) throw new BadRequestException();
+                valid.add(newShip(ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(),
+                        ship.isUsed() == null ? false : ship.isUsed(), ship.getSpeed(), ship.getCrewSize()));
+            } catch (BadRequestException e) {
+                rejected[i] = true;
+            }
+        }
 
-        Double rating = (80 * (isUsed ? 0.5 : 1) * speed) / (3019 - year + 1);
+        shipRepo.insertAll(valid, batchSize);
+        if (!valid.isEmpty()) fleetGeneration.advance(valid.stream().map(Ship::getShipType).distinct().toArray(ShipType[]::new));
 
-        Ship ship = new Ship(name, planet, shipType, prodDate, isUsed, Math.round(speed * 100) / 100.0, crewSize, rating);
-        return shipRepo.save(ship);
+        ShipBatchResult result = new ShipBatchResult();
+        Iterator<Ship> inserted = valid.iterator();
+        for (int i = 0; i < ships.size(); i++) {
+            if (rejected[i]) {
+                result.rejected(i);
+            } else {
+                Ship saved = inserted.next();
+                eventPublisher.publishEvent(new ShipSavedEvent(saved));
+                result.created(i, saved.getId());
+            }
+        }
+        return result;
     }
 
-    public Ship updateShip(Long id, String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize) {
+    /**
+     * Writes only the changed columns, the recomputed rating and the bumped version in one UPDATE guarded by the
+     * version the ship was read at. With {@code expectedVersion} the update applies only to that version of the ship.
+     */
+    public Ship updateShip(Long id, Long expectedVersion, String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize) {
         if(id <= 0) throw new BadRequestException();
 
         Ship shipFromDB = shipRepo.findById(id).orElseThrow(NotFoundException::new);
+        if(expectedVersion != null && !expectedVersion.equals(shipFromDB.getVersion())) throw new PreconditionFailedException();
 
         if(name == null && planet == null && shipType == null && prodDate == null && speed == null && crewSize == null && isUsed == null)
             return shipFromDB;
 
-        if(name != null) {
-            if (name.length() <= 50 && !name.isEmpty())
-                shipFromDB.setName(name);
-            else throw new BadRequestException();
-        }
+        ShipType oldShipType = shipFromDB.getShipType();
+        Ship patch = patch(name, planet, shipType, prodDate, isUsed, speed, crewSize);
+        if(patch.getName() != null) shipFromDB.setName(patch.getName());
+        if(patch.getPlanet() != null) shipFromDB.setPlanet(patch.getPlanet());
+        if(patch.getSpeed() != null) shipFromDB.setSpeed(patch.getSpeed());
+        if(patch.getCrewSize() != null) shipFromDB.setCrewSize(patch.getCrewSize());
+        if(patch.getShipType() != null) shipFromDB.setShipType(patch.getShipType());
+        if(patch.getProdDate() != null) shipFromDB.setProdDate(patch.getProdDate());
+        if(patch.isUsed() != null) shipFromDB.setUsed(patch.isUsed());
+
+        int year = shipFromDB.getProdDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().getYear();
+        double rating = (80 * (shipFromDB.isUsed() ? 0.5 : 1) * shipFromDB.getSpeed()) / (3019 - year + 1);
+        shipFromDB.setRating(Math.round(rating * 100) / 100.0);
 
-        if(planet != null) {
-            if (planet.length() <= 50 && !planet.isEmpty())
-                shipFromDB.setPlanet(planet);
-            else throw new BadRequestException();
+        try {
+            shipRepo.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // another writer got in between reading and writing the ship, so any cached copy is stale too
+            shipByIdCache.invalidate(id);
+            if(expectedVersion != null) throw new PreconditionFailedException();
+            throw new ConflictException();
         }
+        shipByIdCache.invalidate(id);
+        fleetGeneration.advance(oldShipType, shipFromDB.getShipType());
+        eventPublisher.publishEvent(new ShipSavedEvent(shipFromDB));
+
+        return shipFromDB;
+    }
+
+    /**
+     * Applies the non-null fields to every ship matching the filter in a single UPDATE, recomputing the rating in SQL.
+     */
+    public int updateShips(Map<String, Object> parametersToSearch, String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize) {
+        if(parametersToSearch.isEmpty()) throw new BadRequestException();
+        if(name == null && planet == null && shipType == null && prodDate == null && speed == null && crewSize == null && isUsed == null)
+            throw new BadRequestException();
 
-        double speedToUpdate;
-        if (speed != null) {
-            speedToUpdate = Math.round(speed * 100) / 100.0;
-            if(speedToUpdate > 0.1 && speedToUpdate < 0.99)
-                shipFromDB.setSpeed(speedToUpdate);
-            else throw new BadRequestException();
+        Ship patch = patch(name, planet, shipType, prodDate, isUsed, speed, crewSize);
+        Specification<Ship> specification = specification(parametersToSearch);
+        if (specification == null) return 0;
+
+        int updated = shipRepo.updateMatching(specification, patch);
+        if (updated > 0) reloadFleet();
+        return updated;
+    }
+
+    public void deleteShip(Long id) {
+        if (id <= 0) throw new BadRequestException();
+        Ship ship = shipRepo.findById(id).orElseThrow(NotFoundException::new);
+        shipRepo.deleteById(id);
+        shipByIdCache.invalidate(id);
+        fleetGeneration.advance(ship.getShipType());
+        eventPublisher.publishEvent(new ShipDeletedEvent(id));
+    }
+
+    /**
+     * Deletes every ship matching the filter in a single DELETE. An empty filter is rejected rather than clearing the table.
+     */
+    public int deleteShips(Map<String, Object> parametersToSearch) {
+        if(parametersToSearch.isEmpty()) throw new BadRequestException();
+        Specification<Ship> specification = specification(parametersToSearch);
+        if (specification == null) return 0;
+
+        int deleted = shipRepo.deleteMatching(specification);
+        if (deleted > 0) reloadFleet();
+        return deleted;
+    }
+
+    /**
+     * Changes whenever a write may change the ships matching the criteria; take it before reading them. Null when the
+     * ships would be read on a replica, whose answer may predate the version.
+     */
+    public String getFleetVersion(Map<String, Object> parametersToSearch) {
+        return routingDataSource.readsFromPrimary() ? fleetGeneration.version(parametersToSearch) : null;
+    }
+
+    @Transactional(readOnly = true)
+    public int getCount(Map<String, Object> parametersToSearch) {
+        Integer cached = shipResultCache.getCount(parametersToSearch);
+        if (cached != null) return cached;
+
+        long stamp = shipResultCache.stamp(parametersToSearch);
+        int count = countMatching(parametersToSearch);
+        if (cachesResults()) shipResultCache.putCount(parametersToSearch, stamp, count);
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Ship> getShips(Map<String, Object> parametersToSearch, Pageable pageable) {
+        List<Ship> cached = cachedPage(parametersToSearch, pageable);
+        if (cached != null) return cached;
+
+        long stamp = shipResultCache.stamp(parametersToSearch);
+        List<Ship> ships = findMatching(parametersToSearch, pageable);
+        if (cachesResults()) shipResultCache.putIds(parametersToSearch, pageable, stamp, ids(ships));
+        return ships;
+    }
+
+    /**
+     * Same result as {@link #getShips}, written as a JSON array straight from JDBC. Runs without a JPA transaction
+     * or persistence context; the read-only flag still routes the query to a replica.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public void writeShips(Map<String, Object> parametersToSearch, Pageable pageable, ShipEncoding encoding, OutputStream out) throws IOException {
+        List<Ship> cached = cachedPage(parametersToSearch, pageable);
+        if (cached != null) {
+            shipJsonStreamer.writeShips(cached, encoding, out);
+            return;
         }
 
-        if(crewSize != null) {
-            if (crewSize <= 9999 && crewSize > 0)
-                shipFromDB.setCrewSize(crewSize);
-            else throw new BadRequestException();
+        long stamp = shipResultCache.stamp(parametersToSearch);
+        List<Long> ids;
+        List<Ship> ships = columnarFleet.isEnabled() ? columnarFleet.find(parametersToSearch, pageable) : null;
+        if (ships != null) {
+            shipJsonStreamer.writeShips(ships, encoding, out);
+            ids = ids(ships);
+        } else {
+            Set<Long> candidates = candidates(parametersToSearch);
+            if (candidates != null && candidates.isEmpty()) {
+                shipJsonStreamer.writeEmpty(encoding, out);
+                ids = Collections.emptyList();
+            } else {
+                ids = shipJsonStreamer.writePage(parametersToSearch, candidates, pageable, encoding, out);
+            }
         }
+        if (cachesResults()) shipResultCache.putIds(parametersToSearch, pageable, stamp, ids);
+    }
 
-        if(shipType != null)
-            shipFromDB.setShipType(shipType);
+    /**
+     * Writes every ship matching the filter, in id order, without loading them into memory.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public void exportShips(Map<String, Object> parametersToSearch, ShipFormat format, OutputStream out) throws IOException {
+        shipExporter.export(parametersToSearch, candidates(parametersToSearch), format, out);
+    }
 
-        Integer year;
-        if(prodDate != null) {
-            LocalDate localDate = prodDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            year  = localDate.getYear();
-            if(year >= 2800 && year <= 3019)
-                shipFromDB.setProdDate(prodDate);
-            else throw new BadRequestException();
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<ShipStats> getStats(Map<String, Object> parametersToSearch, StatsGroup groupBy, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) throw new BadRequestException();
+        return shipAnalytics.stats(parametersToSearch, candidates(parametersToSearch), groupBy, buckets);
+    }
+
+    /**
+     * The {@code limit} ships with the highest {@code sortField}, ties by ascending id. Only the winning ships are loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<Ship> getTopShips(Map<String, Object> parametersToSearch, String sortField, int limit) {
+        if (limit < 1 || limit > MAX_TOP) throw new BadRequestException();
+        List<Long> ids = leaderboard.top(parametersToSearch, candidates(parametersToSearch), sortField, limit);
+        if (ids.isEmpty()) return Collections.emptyList();
+
+        Map<Long, Ship> ships = new HashMap<>();
+        for (Ship ship : shipRepo.findAllById(ids)) ships.put(ship.getId(), ship);
+        List<Ship> top = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (ships.containsKey(id)) top.add(ships.get(id));
         }
-        year = shipFromDB.getProdDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().getYear();
+        return top;
+    }
 
-        if(isUsed != null) shipFromDB.setUsed(isUsed);
+    @Transactional(readOnly = true)
+    public List<Ship> getShipsAfter(Map<String, Object> parametersToSearch, String sortField, Comparable<?> lastValue, Long lastId, int limit) {
+        Specification<Ship> specification = specification(parametersToSearch);
+        if (specification == null) return Collections.emptyList();
+        if (lastId != null) specification = specification.and(ShipSpecifications.after(sortField, lastValue, lastId));
+        Sort sort = "id".equals(sortField) ? Sort.by("id") : Sort.by(sortField, "id");
+        return shipRepo.findContent(specification, PageRequest.of(0, limit, sort));
+    }
 
-        double rating = (80 * (shipFromDB.isUsed() ? 0.5 : 1) * shipFromDB.getSpeed()) / (3019 - year + 1);
-        shipFromDB.setRating(Math.round(rating * 100) / 100.0);
+    /**
+     * Asks the in-memory indexes to rebuild from the database, e.g. after the table was changed outside this service.
+     */
+    public void reloadFleet() {
+        eventPublisher.publishEvent(new FleetChangedEvent());
+    }
 
-        shipRepo.save(shipFromDB);
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (event.getApplicationContext().getParent() == null) reloadFleet();
+    }
 
-        return shipFromDB;
+    private int countMatching(Map<String, Object> parametersToSearch) {
+        Integer indexed = columnarFleet.isEnabled() ? columnarFleet.count(parametersToSearch) : null;
+        if (indexed != null) return indexed;
+        indexed = bitmapIndex.count(parametersToSearch);
+        if (indexed != null) return indexed;
+        Specification<Ship> specification = specification(parametersToSearch);
+        return specification == null ? 0 : (int) shipRepo.countMatching(specification);
     }
 
-    public void deleteShip(Long id) {
-        if (id <= 0) throw new BadRequestException();
-        shipRepo.findById(id).orElseThrow(NotFoundException::new);
-        shipRepo.deleteById(id);
+    private List<Ship> findMatching(Map<String, Object> parametersToSearch, Pageable pageable) {
+        List<Ship> ships = columnarFleet.isEnabled() ? columnarFleet.find(parametersToSearch, pageable) : null;
+        if (ships != null) return ships;
+        Specification<Ship> specification = specification(parametersToSearch);
+        return specification == null ? Collections.emptyList() : shipRepo.findContent(specification, pageable);
     }
 
-    public int getCount(Map<String, Object> parametersToSearch) {
-        Pageable pageable = PageRequest.of(0, 3);
-        return (int) findByCriteria(parametersToSearch, pageable).getTotalElements();
+    // the cached page hydrated through the by-id cache, null when it is not cached or a ship has gone meanwhile
+    private List<Ship> cachedPage(Map<String, Object> parametersToSearch, Pageable pageable) {
+        List<Long> ids = shipResultCache.getIds(parametersToSearch, pageable);
+        if (ids == null) return null;
+        List<Ship> ships = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Ship ship = shipByIdCache.get(id, this::loadShip);
+            if (ship == null) return null;
+            ships.add(ship);
+        }
+        return ships;
     }
 
-    public List<Ship> getShips(Map<String, Object> parametersToSearch, Pageable pageable) {
-        return findByCriteria(parametersToSearch, pageable).getContent();
-    }
-
-    private Page<Ship> findByCriteria(Map<String, Object> parametersToSearch, Pageable pageable) {
-        Double minSpeed = parametersToSearch.get("minSpeed") == null ? 0.00 : (Double) parametersToSearch.get("minSpeed");
-        Double maxSpeed = parametersToSearch.get("maxSpeed") == null ? 1.0 : (Double) parametersToSearch.get("maxSpeed");
-        Integer minCrewSize = parametersToSearch.get("minCrewSize") == null ? 0 : (Integer) parametersToSearch.get("minCrewSize");
-        Integer maxCrewSize = parametersToSearch.get("maxCrewSize") == null ? 10000 : (Integer) parametersToSearch.get("maxCrewSize");
-        Double minRating = parametersToSearch.get("minRating") == null ? 0.0 : (Double) parametersToSearch.get("minRating");
-        Double maxRating = parametersToSearch.get("maxRating") == null ? Double.MAX_VALUE : (Double) parametersToSearch.get("maxRating");
-        Date after = parametersToSearch.get("after") == null ? new Date(26204666806826l) : new Date((Long) parametersToSearch.get("after"));
-        Date before = parametersToSearch.get("before") == null ? new Date(33115544942804l) : new Date((Long) parametersToSearch.get("before"));
-
-        Page<Ship> result = null;
-
-        if (parametersToSearch.containsKey("name") && parametersToSearch.containsKey("planet") && parametersToSearch.containsKey("shipType") && parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByNameIsContainingAndPlanetContainingAndShipTypeAndIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("name"), (String) parametersToSearch.get("planet"), (ShipType) parametersToSearch.get("shipType"), (Boolean) parametersToSearch.get("isUsed"),
-                    minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("name") && parametersToSearch.containsKey("planet") && parametersToSearch.containsKey("shipType")) {
-            result = shipRepo.findByNameIsContainingAndPlanetContainingAndShipTypeAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("name"), (String) parametersToSearch.get("planet"), (ShipType) parametersToSearch.get("shipType"),
-                    minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("name") && parametersToSearch.containsKey("shipType") && parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByNameIsContainingAndShipTypeAndIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("name"), (ShipType) parametersToSearch.get("shipType"), (Boolean) parametersToSearch.get("isUsed"),
-                    minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("planet") && parametersToSearch.containsKey("shipType") && parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByPlanetContainingAndShipTypeAndIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("planet"), (ShipType) parametersToSearch.get("shipType"), (Boolean) parametersToSearch.get("isUsed"),
-                    minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("name") && parametersToSearch.containsKey("planet")) {
-            result = shipRepo.findByNameIsContainingAndPlanetContainingAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("name"), (String) parametersToSearch.get("planet"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("name") && parametersToSearch.containsKey("shipType")) {
-            result = shipRepo.findByNameIsContainingAndShipTypeAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("name"), (ShipType) parametersToSearch.get("shipType"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("name") && parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByNameIsContainingAndIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("name"), (Boolean) parametersToSearch.get("isUsed"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("planet") && parametersToSearch.containsKey("shipType")) {
-            result = shipRepo.findByPlanetContainingAndShipTypeAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("planet"), (ShipType) parametersToSearch.get("shipType"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("planet") && parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByPlanetContainingAndIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (String) parametersToSearch.get("planet"), (Boolean) parametersToSearch.get("isUsed"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("shipType") && parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByShipTypeAndIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(
-                    (ShipType) parametersToSearch.get("shipType"), (Boolean) parametersToSearch.get("isUsed"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("name")) {
-            result = shipRepo.findByNameIsContainingAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween((String) parametersToSearch.get("name"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if (parametersToSearch.containsKey("planet")) {
-            result = shipRepo.findByPlanetContainingAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween((String) parametersToSearch.get("planet"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else if(parametersToSearch.containsKey("shipType")) {
-            result = shipRepo.findByShipTypeAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween((ShipType) parametersToSearch.get("shipType"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        }else if(parametersToSearch.containsKey("isUsed")) {
-            result = shipRepo.findByIsUsedAndSpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween((Boolean) parametersToSearch.get("isUsed"), minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
-        } else result = shipRepo.findBySpeedBetweenAndCrewSizeBetweenAndRatingBetweenAndProdDateBetween(minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, after, before, pageable);
+    // results read on a replica stay out of the result cache: a lagging one's would be stored as current and served to
+    // every client until the next write
+    private boolean cachesResults() {
+        return routingDataSource.readsFromPrimary();
+    }
 
-        return result;
+    // a ship for the by-id cache, read on the primary: a lagging replica could hand back the row the cache was just
+    // invalidated for, and it would then be served until it expires
+    private Ship loadShip(Long id) {
+        if (routingDataSource.readsFromPrimary()) return shipRepo.findById(id).orElse(null);
+        return primaryReads.execute(status -> shipRepo.findById(id).orElse(null));
+    }
+
+    private static List<Long> ids(List<Ship> ships) {
+        List<Long> ids = new ArrayList<>(ships.size());
+        for (Ship ship : ships) ids.add(ship.getId());
+        return ids;
+    }
+
+    private Ship newShip(String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize) {
+        if(name.length() > 50 || planet.length() > 50 || name.isEmpty() || planet.isEmpty() ||
+                 crewSize < 0 || crewSize > 9999) throw new BadRequestException();
+
+        if((Math.round(speed * 100) / 100.0) < 0.1 || (Math.round(speed * 100) / 100.0) > 0.99)
+            throw new BadRequestException();
+
+        LocalDate localDate = prodDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        int year  = localDate.getYear();
+        if(year < 2800 || year > 3019)
+            throw new BadRequestException();
+
+        Double rating = (80 * (isUsed ? 0.5 : 1) * speed) / (3019 - year + 1);
+
+        return new Ship(name, planet, shipType, prodDate, isUsed, Math.round(speed * 100) / 100.0, crewSize, rating);
+    }
+
+    // validated values of a partial update, with the speed rounded; absent fields stay null
+    private Ship patch(String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize) {
+        if(name != null && (name.length() > 50 || name.isEmpty())) throw new BadRequestException();
+        if(planet != null && (planet.length() > 50 || planet.isEmpty())) throw new BadRequestException();
+
+        Double roundedSpeed = null;
+        if(speed != null) {
+            roundedSpeed = Math.round(speed * 100) / 100.0;
+            if(roundedSpeed <= 0.1 || roundedSpeed >= 0.99) throw new BadRequestException();
+        }
+
+        if(crewSize != null && (crewSize > 9999 || crewSize <= 0)) throw new BadRequestException();
+
+        if(prodDate != null) {
+            int year = prodDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().getYear();
+            if(year < 2800 || year > 3019) throw new BadRequestException();
+        }
+
+        return new Ship(name, planet, shipType, prodDate, isUsed, roundedSpeed, crewSize, null);
+    }
+
+    // null when the indexes prove that nothing matches
+    private Specification<Ship> specification(Map<String, Object> parametersToSearch) {
+        Specification<Ship> specification = ShipSpecifications.byCriteria(parametersToSearch);
+        Set<Long> candidates = candidates(parametersToSearch);
+        if (candidates == null) return specification;
+        if (candidates.isEmpty()) return null;
+        return ShipSpecifications.idIn(candidates).and(specification);
+    }
+
+    // ids the name/planet and category indexes narrow the search to, null when they do not narrow it usefully
+    private Set<Long> candidates(Map<String, Object> parametersToSearch) {
+        Set<Long> candidates = trigramIndex.candidates(parametersToSearch);
+        RoaringBitmap categories = bitmapIndex.candidates(parametersToSearch);
+        if (categories != null) {
+            if (candidates != null) {
+                candidates.removeIf(id -> id > Integer.MAX_VALUE || !categories.contains(id.intValue()));
+            } else if (categories.getCardinality() <= MAX_CANDIDATES) {
+                candidates = new HashSet<>();
+                for (int id : categories) candidates.add((long) id);
+            }
+        }
+        return candidates == null || candidates.size() > MAX_CANDIDATES ? null : candidates;
     }
 }
@@ -0,0 +1,186 @@
+package com.space.service.index;
+
+import com.space.event.FleetChangedEvent;
+import com.space.event.ShipDeletedEvent;
+import com.space.event.ShipSavedEvent;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepo;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmaps of ship ids per {@link ShipType}, per {@code isUsed} value and per production year. The
+ * {@code shipType}, {@code isUsed}, {@code after} and {@code before} filters become bitmap intersections; a date bound
+ * inside a year selects the whole year, so such results are candidates that the database still has to check.
+ * Ships with a missing value are in none of the bitmaps of that column, as SQL comparisons with NULL never match.
+ */
+@Component
+public class BitmapIndex {
+    private final ShipRepo shipRepo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RebuildLog rebuildLog = new RebuildLog(lock);
+
+    private Bitmaps bitmaps = new Bitmaps();
+
+    @Autowired
+    public BitmapIndex(ShipRepo shipRepo) {
+        this.shipRepo = shipRepo;
+    }
+
+    /**
+     * Ids of the ships that may match the indexed filters, or {@code null} if none of them is present.
+     */
+    public RoaringBitmap candidates(Map<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            return bitmaps.overflow ? null : bitmaps.select(criteria);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The exact number of matching ships, or {@code null} if the criteria use filters this index cannot decide alone.
+     */
+    public Integer count(Map<String, Object> criteria) {
+        for (String key : criteria.keySet()) {
+            if (!"shipType".equals(key) && !"isUsed".equals(key) && !"after".equals(key) && !"before".equals(key)) return null;
+        }
+        if (criteria.containsKey("after") && !startsYear((Long) criteria.get("after"))) return null;
+        if (criteria.containsKey("before") && !endsYear((Long) criteria.get("before"))) return null;
+
+        RoaringBitmap candidates = candidates(criteria);
+        return candidates == null ? null : candidates.getCardinality();
+    }
+
+    public void put(Long id, ShipType shipType, Boolean isUsed, Date prodDate) {
+        rebuildLog.write(() -> {
+            bitmaps.remove(id);
+            bitmaps.add(id, shipType, isUsed, prodDate);
+        });
+    }
+
+    public void remove(Long id) {
+        rebuildLog.write(() -> bitmaps.remove(id));
+    }
+
+    public void rebuild() {
+        rebuildLog.rebuild(() -> {
+            Bitmaps loaded = new Bitmaps();
+            for (Object[] row : shipRepo.findAllCategories()) {
+                loaded.add((Long) row[0], (ShipType) row[1], (Boolean) row[2], (Date) row[3]);
+            }
+            loaded.runOptimize();
+            return loaded;
+        }, loaded -> bitmaps = loaded);
+    }
+
+    // after the commit, so the rebuild reads what the bulk write committed and nothing of one that rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipSaved(ShipSavedEvent event) {
+        Ship ship = event.getShip();
+        put(ship.getId(), ship.getShipType(), ship.isUsed(), ship.getProdDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipDeleted(ShipDeletedEvent event) {
+        remove(event.getId());
+    }
+
+    private static int year(long millis) {
+        return localDate(millis).getYear();
+    }
+
+    private static boolean startsYear(long millis) {
+        LocalDate date = localDate(millis);
+        return date.getDayOfYear() == 1 && date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() == millis;
+    }
+
+    // prodDate holds dates only, so any bound on the last day of a year includes the whole year
+    private static boolean endsYear(long millis) {
+        LocalDate date = localDate(millis);
+        return date.getMonthValue() == 12 && date.getDayOfMonth() == 31;
+    }
+
+    // java.sql.Date loaded by Hibernate does not support toInstant()
+    private static LocalDate localDate(long millis) {
+        return new java.sql.Date(millis).toLocalDate();
+    }
+
+    private static final class Bitmaps {
+        private final Map<ShipType, RoaringBitmap> shipTypes = new EnumMap<>(ShipType.class);
+        private final RoaringBitmap used = new RoaringBitmap();
+        private final RoaringBitmap unused = new RoaringBitmap();
+        private final NavigableMap<Integer, RoaringBitmap> years = new TreeMap<>();
+        // ids are stored as ints; a larger id turns the index off until the next rebuild
+        private boolean overflow;
+
+        void add(Long id, ShipType shipType, Boolean isUsed, Date prodDate) {
+            if (id > Integer.MAX_VALUE) {
+                overflow = true;
+                return;
+            }
+            int slot = id.intValue();
+            if (shipType != null) shipTypes.computeIfAbsent(shipType, key -> new RoaringBitmap()).add(slot);
+            if (isUsed != null) (isUsed ? used : unused).add(slot);
+            if (prodDate != null) years.computeIfAbsent(year(prodDate.getTime()), key -> new RoaringBitmap()).add(slot);
+        }
+
+        void remove(Long id) {
+            if (id > Integer.MAX_VALUE) return;
+            int slot = id.intValue();
+            for (RoaringBitmap bitmap : shipTypes.values()) bitmap.remove(slot);
+            used.remove(slot);
+            unused.remove(slot);
+            for (RoaringBitmap bitmap : years.values()) bitmap.remove(slot);
+        }
+
+        RoaringBitmap select(Map<String, Object> criteria) {
+            List<RoaringBitmap> filters = new ArrayList<>();
+            if (criteria.containsKey("shipType"))
+                filters.add(shipTypes.getOrDefault((ShipType) criteria.get("shipType"), new RoaringBitmap()));
+            if (criteria.containsKey("isUsed"))
+                filters.add((Boolean) criteria.get("isUsed") ? used : unused);
+            if (criteria.containsKey("after") || criteria.containsKey("before")) {
+                int from = criteria.containsKey("after") ? year((Long) criteria.get("after")) : Integer.MIN_VALUE;
+                int to = criteria.containsKey("before") ? year((Long) criteria.get("before")) : Integer.MAX_VALUE;
+                filters.add(from > to ? new RoaringBitmap() : RoaringBitmap.or(years.subMap(from, true, to, true).values().iterator()));
+            }
+            if (filters.isEmpty()) return null;
+
+            filters.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+            RoaringBitmap result = filters.get(0).clone();
+            for (int i = 1; i < filters.size() && !result.isEmpty(); i++) {
+                result.and(filters.get(i));
+            }
+            return result;
+        }
+
+        void runOptimize() {
+            for (RoaringBitmap bitmap : shipTypes.values()) bitmap.runOptimize();
+            used.runOptimize();
+            unused.runOptimize();
+            for (RoaringBitmap bitmap : years.values()) bitmap.runOptimize();
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.space.service.index;
+
+import com.space.event.FleetChangedEvent;
+import com.space.event.ShipDeletedEvent;
+import com.space.event.ShipSavedEvent;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipSql;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The fleet held as primitive columns, one slot per ship, answering the ship filters without the database.
+ * Each filter is evaluated column by column into 64-slot bit masks, which are then combined; fleets above the
+ * parallel threshold are scanned in word ranges on the fork/join pool.
+ * Results are the same as the SQL path: a missing value never matches a filter and sorts below every other value.
+ * With {@code engine.columnar.foldText}, the default, {@code name}/{@code planet} are matched like the MySQL collation
+ * of the ship table through {@link TextFolding}; filters on text the folding cannot decide are left to the database.
+ * Turn it off for a case-sensitive database such as H2.
+ */
+@Component
+public class ColumnarFleet {
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean foldText;
+    private final int parallelThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RebuildLog rebuildLog = new RebuildLog(lock);
+
+    private Columns columns = new Columns(0);
+
+    @Autowired
+    public ColumnarFleet(JdbcTemplate jdbcTemplate,
+                         @Value("${engine.columnar.enabled:false}") boolean enabled,
+                         @Value("${engine.columnar.foldText:true}") boolean foldText,
+                         @Value("${engine.columnar.parallelThreshold:65536}") int parallelThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.foldText = foldText;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The number of matching ships, or {@code null} if the database has to decide a {@code name}/{@code planet} filter.
+     */
+    public Integer count(Map<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            Query query = new Query(criteria);
+            if (!columns.decides(query)) return null;
+            long[] mask = scan(columns, query);
+            int count = 0;
+            for (long word : mask) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The page of matching ships, ordered by the pageable's sort and then by id, or {@code null} like {@link #count}.
+     */
+    public List<Ship> find(Map<String, Object> criteria, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Columns columns = this.columns;
+            Query query = new Query(criteria);
+            if (!columns.decides(query)) return null;
+            long[] mask = scan(columns, query);
+            List<Integer> slots = new ArrayList<>();
+            for (int w = 0; w < mask.length; w++) {
+                for (long word = mask[w]; word != 0; word &= word - 1) {
+                    slots.add((w << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            slots.sort(columns.comparator(pageable.getSort()));
+
+            int from = (int) Math.min(pageable.getOffset(), slots.size());
+            int to = Math.min(from + pageable.getPageSize(), slots.size());
+            List<Ship> ships = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ships.add(columns.ship(slots.get(i)));
+            }
+            return ships;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Ship ship) {
+        if (!enabled) return;
+        Long prodDate = ship.getProdDate() == null ? null : startOfDay(ship.getProdDate());
+        rebuildLog.write(() -> columns = columns.put(ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(),
+                prodDate, ship.isUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating()));
+    }
+
+    public void remove(Long id) {
+        if (!enabled) return;
+        rebuildLog.write(() -> columns = columns.remove(id));
+    }
+
+    public void rebuild() {
+        if (!enabled) return;
+        rebuildLog.rebuild(() -> {
+            Columns loaded = new Columns(1024);
+            jdbcTemplate.query("SELECT " + ShipSql.COLUMNS + " FROM ship ORDER BY id", rs -> {
+                Timestamp prodDate = rs.getTimestamp("prodDate");
+                String shipType = rs.getString("shipType");
+                loaded.put(rs.getLong("id"), rs.getString("name"), rs.getString("planet"),
+                        shipType == null ? null : ShipType.valueOf(shipType), prodDate == null ? null : prodDate.getTime(),
+                        nullable(rs, rs.getBoolean("isUsed")), nullable(rs, rs.getDouble("speed")),
+                        nullable(rs, rs.getInt("crewSize")), nullable(rs, rs.getDouble("rating")));
+            });
+            return loaded;
+        }, loaded -> columns = loaded);
+    }
+
+    // after the commit, so the rebuild reads what the bulk write committed and nothing of one that rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipSaved(ShipSavedEvent event) {
+        put(event.getShip());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipDeleted(ShipDeletedEvent event) {
+        remove(event.getId());
+    }
+
+    private long[] scan(Columns columns, Query query) {
+        long[] mask = new long[(columns.size + 63) >>> 6];
+        if (columns.size > parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new ScanTask(columns, query, mask, 0, mask.length, Math.max(1, parallelThreshold >>> 6)));
+        } else {
+            columns.scan(query, mask, 0, mask.length);
+        }
+        return mask;
+    }
+
+    // DATE columns come back from JDBC as local midnight, so entity dates are truncated the same way
+    static long startOfDay(Date date) {
+        return new java.sql.Date(date.getTime()).toLocalDate().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static <T> T nullable(ResultSet rs, T value) throws SQLException {
+        return rs.wasNull() ? null : value;
+    }
+
+    private String key(String value) {
+        return foldText ? TextFolding.fold(value) : value;
+    }
+
+    // whether the database could match a key differently from a plain substring test
+    private boolean undecided(String key) {
+        return foldText && key != null && !TextFolding.isAscii(key);
+    }
+
+    private final class Query {
+        private final String name;
+        private final String planet;
+        private final int shipType;
+        private final Boolean isUsed;
+        private final boolean byProdDate;
+        private final long after;
+        private final long before;
+        private final boolean bySpeed;
+        private final double minSpeed;
+        private final double maxSpeed;
+        private final boolean byCrewSize;
+        private final int minCrewSize;
+        private final int maxCrewSize;
+        private final boolean byRating;
+        private final double minRating;
+        private final double maxRating;
+
+        Query(Map<String, Object> criteria) {
+            name = key((String) criteria.get("name"));
+            planet = key((String) criteria.get("planet"));
+            shipType = criteria.containsKey("shipType") ? ((ShipType) criteria.get("shipType")).ordinal() : -1;
+            isUsed = (Boolean) criteria.get("isUsed");
+            byProdDate = criteria.containsKey("after") || criteria.containsKey("before");
+            after = (Long) criteria.getOrDefault("after", Long.MIN_VALUE);
+            before = (Long) criteria.getOrDefault("before", Long.MAX_VALUE);
+            bySpeed = criteria.containsKey("minSpeed") || criteria.containsKey("maxSpeed");
+            minSpeed = (Double) criteria.getOrDefault("minSpeed", Double.NEGATIVE_INFINITY);
+            maxSpeed = (Double) criteria.getOrDefault("maxSpeed", Double.POSITIVE_INFINITY);
+            byCrewSize = criteria.containsKey("minCrewSize") || criteria.containsKey("maxCrewSize");
+            minCrewSize = (Integer) criteria.getOrDefault("minCrewSize", Integer.MIN_VALUE);
+            maxCrewSize = (Integer) criteria.getOrDefault("maxCrewSize", Integer.MAX_VALUE);
+            byRating = criteria.containsKey("minRating") || criteria.containsKey("maxRating");
+            minRating = (Double) criteria.getOrDefault("minRating", Double.NEGATIVE_INFINITY);
+            maxRating = (Double) criteria.getOrDefault("maxRating", Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private static final class ScanTask extends RecursiveAction {
+        private final Columns columns;
+        private final Query query;
+        private final long[] mask;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ScanTask(Columns columns, Query query, long[] mask, int from, int to, int grain) {
+            this.columns = columns;
+            this.query = query;
+            this.mask = mask;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                columns.scan(query, mask, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(columns, query, mask, from, middle, grain), new ScanTask(columns, query, mask, middle, to, grain));
+            }
+        }
+    }
+
+    /**
+     * Column storage. Missing doubles are NaN, which fails every comparison just like SQL NULL; missing ints, dates and
+     * flags have their own null bits. Deleted slots are only cleared from {@code live} until the next compaction.
+     */
+    private final class Columns {
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private int size;
+        private int dead;
+        // live slots whose name or planet key the folding cannot decide
+        private int undecidedNames;
+        private int undecidedPlanets;
+        private long[] ids;
+        private String[] names;
+        private String[] planets;
+        private String[] nameKeys;
+        private String[] planetKeys;
+        private byte[] shipTypes;
+        private long[] prodDates;
+        private double[] speeds;
+        private int[] crewSizes;
+        private double[] ratings;
+        private long[] live;
+        private long[] used;
+        private long[] usedNulls;
+        private long[] prodDateNulls;
+        private long[] crewSizeNulls;
+
+        Columns(int capacity) {
+            allocate(Math.max(64, capacity));
+        }
+
+        Columns put(long id, String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed,
+                    Double speed, Integer crewSize, Double rating) {
+            Integer slot = slots.get(id);
+            if (slot == null) {
+                if (size == ids.length) grow();
+                slot = size++;
+                slots.put(id, slot);
+                ids[slot] = id;
+                live[slot >>> 6] |= 1L << slot;
+            } else {
+                forgetKeys(slot);
+            }
+            names[slot] = name;
+            planets[slot] = planet;
+            nameKeys[slot] = key(name);
+            planetKeys[slot] = key(planet);
+            if (undecided(nameKeys[slot])) undecidedNames++;
+            if (undecided(planetKeys[slot])) undecidedPlanets++;
+            shipTypes[slot] = (byte) (shipType == null ? -1 : shipType.ordinal());
+            prodDates[slot] = prodDate == null ? Long.MIN_VALUE : prodDate;
+            speeds[slot] = speed == null ? Double.NaN : speed;
+            crewSizes[slot] = crewSize == null ? Integer.MIN_VALUE : crewSize;
+            ratings[slot] = rating == null ? Double.NaN : rating;
+            assign(used, slot, Boolean.TRUE.equals(isUsed));
+            assign(usedNulls, slot, isUsed == null);
+            assign(prodDateNulls, slot, prodDate == null);
+            assign(crewSizeNulls, slot, crewSize == null);
+            return this;
+        }
+
+        Columns remove(Long id) {
+            Integer slot = slots.remove(id);
+            if (slot == null) return this;
+            live[slot >>> 6] &= ~(1L << slot);
+            forgetKeys(slot);
+            names[slot] = planets[slot] = nameKeys[slot] = planetKeys[slot] = null;
+            return ++dead > 64 && dead > size / 2 ? compact() : this;
+        }
+
+        boolean decides(Query query) {
+            if (query.name != null && (undecided(query.name) || undecidedNames > 0)) return false;
+            return query.planet == null || !undecided(query.planet) && undecidedPlanets == 0;
+        }
+
+        void scan(Query query, long[] mask, int fromWord, int toWord) {
+            for (int w = fromWord; w < toWord; w++) {
+                int base = w << 6;
+                int end = Math.min(base + 64, size);
+                long bits = live[w];
+                if (query.shipType >= 0) {
+                    long match = 0;
+                    for (int i = base; i < end; i++) match |= (shipTypes[i] == query.shipType ? 1L : 0L) << (i - base);
+                    bits &= match;
+                }
+                if (query.isUsed != null) bits &= (query.isUsed ? used[w] : ~used[w]) & ~usedNulls[w];
+                if (query.byProdDate && bits != 0) {
+                    long match = 0;
+                    for (int i = base; i < end; i++)
+                        match |= (prodDates[i] >= query.after & prodDates[i] <= query.before ? 1L : 0L) << (i - base);
+                    bits &= match & ~prodDateNulls[w];
+                }
+                if (query.bySpeed && bits != 0) {
+                    long match = 0;
+                    for (int i = base; i < end; i++)
+                        match |= (speeds[i] >= query.minSpeed & speeds[i] <= query.maxSpeed ? 1L : 0L) << (i - base);
+                    bits &= match;
+                }
+                if (query.byCrewSize && bits != 0) {
+                    long match = 0;
+                    for (int i = base; i < end; i++)
+                        match |= (crewSizes[i] >= query.minCrewSize & crewSizes[i] <= query.maxCrewSize ? 1L : 0L) << (i - base);
+                    bits &= match & ~crewSizeNulls[w];
+                }
+                if (query.byRating && bits != 0) {
+                    long match = 0;
+                    for (int i = base; i < end; i++)
+                        match |= (ratings[i] >= query.minRating & ratings[i] <= query.maxRating ? 1L : 0L) << (i - base);
+                    bits &= match;
+                }
+                // string containment is the expensive test, so it only runs on slots that passed everything else
+                if (query.name != null) bits = contains(nameKeys, query.name, base, bits);
+                if (query.planet != null) bits = contains(planetKeys, query.planet, base, bits);
+                mask[w] = bits;
+            }
+        }
+
+        Comparator<Integer> comparator(Sort sort) {
+            Comparator<Integer> comparator = null;
+            for (Sort.Order order : sort) {
+                Comparator<Integer> next = comparator(order.getProperty());
+                if (order.isDescending()) next = next.reversed();
+                comparator = comparator == null ? next : comparator.thenComparing(next);
+            }
+            Comparator<Integer> byId = comparator("id");
+            return comparator == null ? byId : comparator.thenComparing(byId);
+        }
+
+        Ship ship(int slot) {
+            Ship ship = new Ship(names[slot], planets[slot], shipTypes[slot] < 0 ? null : SHIP_TYPES[shipTypes[slot]],
+                    bit(prodDateNulls, slot) ? null : new Date(prodDates[slot]),
+                    bit(usedNulls, slot) ? null : bit(used, slot),
+                    Double.isNaN(speeds[slot]) ? null : speeds[slot],
+                    bit(crewSizeNulls, slot) ? null : crewSizes[slot],
+                    Double.isNaN(ratings[slot]) ? null : ratings[slot]);
+            ship.setId(ids[slot]);
+            return ship;
+        }
+
+        // nulls (NaN, MIN_VALUE) order below every value, as the database does
+        private Comparator<Integer> comparator(String field) {
+            switch (field) {
+                case "id":
+                    return (a, b) -> Long.compare(ids[a], ids[b]);
+                case "speed":
+                    return (a, b) -> compareNullable(speeds[a], speeds[b]);
+                case "prodDate":
+                    return (a, b) -> Long.compare(prodDates[a], prodDates[b]);
+                case "rating":
+                    return (a, b) -> compareNullable(ratings[a], ratings[b]);
+                case "crewSize":
+                    return (a, b) -> Integer.compare(crewSizes[a], crewSizes[b]);
+                default:
+                    throw new IllegalArgumentException("Unsupported sort " + field);
+            }
+        }
+
+        private void forgetKeys(int slot) {
+            if (undecided(nameKeys[slot])) undecidedNames--;
+            if (undecided(planetKeys[slot])) undecidedPlanets--;
+        }
+
+        private Columns compact() {
+            Columns compacted = new Columns(slots.size() * 2);
+            for (int slot = 0; slot < size; slot++) {
+                if (!bit(live, slot)) continue;
+                compacted.put(ids[slot], names[slot], planets[slot], shipTypes[slot] < 0 ? null : SHIP_TYPES[shipTypes[slot]],
+                        bit(prodDateNulls, slot) ? null : prodDates[slot], bit(usedNulls, slot) ? null : bit(used, slot),
+                        Double.isNaN(speeds[slot]) ? null : speeds[slot], bit(crewSizeNulls, slot) ? null : crewSizes[slot],
+                        Double.isNaN(ratings[slot]) ? null : ratings[slot]);
+            }
+            return compacted;
+        }
+
+        private void allocate(int capacity) {
+            ids = new long[capacity];
+            names = new String[capacity];
+            planets = new String[capacity];
+            nameKeys = new String[capacity];
+            planetKeys = new String[capacity];
+            shipTypes = new byte[capacity];
+            prodDates = new long[capacity];
+            speeds = new double[capacity];
+            crewSizes = new int[capacity];
+            ratings = new double[capacity];
+            int words = (capacity + 63) >>> 6;
+            live = new long[words];
+            used = new long[words];
+            usedNulls = new long[words];
+            prodDateNulls = new long[words];
+            crewSizeNulls = new long[words];
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            int words = (capacity + 63) >>> 6;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            planets = Arrays.copyOf(planets, capacity);
+            nameKeys = Arrays.copyOf(nameKeys, capacity);
+            planetKeys = Arrays.copyOf(planetKeys, capacity);
+            shipTypes = Arrays.copyOf(shipTypes, capacity);
+            prodDates = Arrays.copyOf(prodDates, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            crewSizes = Arrays.copyOf(crewSizes, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            live = Arrays.copyOf(live, words);
+            used = Arrays.copyOf(used, words);
+            usedNulls = Arrays.copyOf(usedNulls, words);
+            prodDateNulls = Arrays.copyOf(prodDateNulls, words);
+            crewSizeNulls = Arrays.copyOf(crewSizeNulls, words);
+        }
+    }
+
+    private static long contains(String[] values, String part, int base, long bits) {
+        for (long word = bits; word != 0; word &= word - 1) {
+            int bit = Long.numberOfTrailingZeros(word);
+            String value = values[base + bit];
+            if (value == null || !value.contains(part)) bits &= ~(1L << bit);
+        }
+        return bits;
+    }
+
+    private static int compareNullable(double a, double b) {
+        if (Double.isNaN(a) || Double.isNaN(b)) return Boolean.compare(!Double.isNaN(a), !Double.isNaN(b));
+        return Double.compare(a, b);
+    }
+
+    private static boolean bit(long[] bits, int slot) {
+        return (bits[slot >>> 6] & 1L << slot) != 0;
+    }
+
+    private static void assign(long[] bits, int slot, boolean value) {
+        if (value) bits[slot >>> 6] |= 1L << slot;
+        else bits[slot >>> 6] &= ~(1L << slot);
+    }
+}
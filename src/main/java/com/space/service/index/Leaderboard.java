@@ -0,0 +1,218 @@
+package com.space.service.index;
+
+import com.space.event.FleetChangedEvent;
+import com.space.event.ShipDeletedEvent;
+import com.space.event.ShipSavedEvent;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepo;
+import com.space.repository.ShipSql;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Highest ships by one of the sortable fields, ties broken by ascending id; a missing value ranks below every other.
+ * Every ship type keeps its ships ordered by each field, updated on writes, so a query filtered by nothing but the
+ * ship type reads its first k entries. Any other filter streams the sort column of the matching rows from the database
+ * through a heap bounded to k entries, for O(n log k) instead of sorting the whole filtered set.
+ */
+@Component
+public class Leaderboard {
+    public static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList("id", "speed", "prodDate", "rating", "crewSize"));
+
+    private static final Comparator<Entry> RANK = Comparator.comparingDouble((Entry entry) -> entry.value).reversed()
+            .thenComparingLong(entry -> entry.id);
+
+    private final ShipRepo shipRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RebuildLog rebuildLog = new RebuildLog(lock);
+
+    // ships of each type (null for ships without one) ordered by each field, in FIELDS order
+    private Map<ShipType, List<NavigableSet<Entry>>> rankings = new HashMap<>();
+    private Map<Long, Entry[]> entries = new HashMap<>();
+
+    @Autowired
+    public Leaderboard(ShipRepo shipRepo, JdbcTemplate jdbcTemplate, @Value("${db.export.fetchSize:1000}") int fetchSize) {
+        this.shipRepo = shipRepo;
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Ids of the first {@code limit} ships matching the criteria, highest {@code field} first. {@code ids}, when not
+     * null, restricts the database selection to those ships.
+     */
+    public List<Long> top(Map<String, Object> criteria, Collection<Long> ids, String field, int limit) {
+        int index = FIELDS.indexOf(field);
+        if (index < 0) throw new IllegalArgumentException("Unsupported order " + field);
+        if (criteria.isEmpty() || criteria.size() == 1 && criteria.containsKey("shipType")) {
+            return fromRankings((ShipType) criteria.get("shipType"), !criteria.isEmpty(), index, limit);
+        }
+        return ids != null && ids.isEmpty() ? Collections.emptyList() : fromDatabase(criteria, ids, field, limit);
+    }
+
+    public void put(Ship ship) {
+        Entry[] shipEntries = entries(ship.getId(), ship.getSpeed(),
+                ship.getProdDate() == null ? null : ColumnarFleet.startOfDay(ship.getProdDate()), ship.getRating(), ship.getCrewSize());
+        rebuildLog.write(() -> {
+            removeLocked(ship.getId());
+            entries.put(ship.getId(), shipEntries);
+            add(rankings, ship.getShipType(), shipEntries);
+        });
+    }
+
+    public void remove(Long id) {
+        rebuildLog.write(() -> removeLocked(id));
+    }
+
+    public void rebuild() {
+        Map<ShipType, List<NavigableSet<Entry>>> newRankings = new HashMap<>();
+        Map<Long, Entry[]> newEntries = new HashMap<>();
+        rebuildLog.rebuild(() -> {
+            for (Object[] row : shipRepo.findAllSortKeys()) {
+                Date prodDate = (Date) row[3];
+                Entry[] shipEntries = entries((Long) row[0], (Double) row[2], prodDate == null ? null : prodDate.getTime(), (Double) row[4], (Integer) row[5]);
+                newEntries.put((Long) row[0], shipEntries);
+                add(newRankings, (ShipType) row[1], shipEntries);
+            }
+            return newRankings;
+        }, loaded -> {
+            rankings = loaded;
+            entries = newEntries;
+        });
+    }
+
+    // after the commit, so the rebuild reads what the bulk write committed and nothing of one that rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipSaved(ShipSavedEvent event) {
+        put(event.getShip());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipDeleted(ShipDeletedEvent event) {
+        remove(event.getId());
+    }
+
+    // merges the per-type orderings when no type is given; every iterator holds at most limit steps
+    private List<Long> fromRankings(ShipType shipType, boolean byType, int index, int limit) {
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> RANK.compare(a.entry, b.entry));
+            for (Map.Entry<ShipType, List<NavigableSet<Entry>>> ranking : rankings.entrySet()) {
+                if (byType && ranking.getKey() != shipType) continue;
+                Iterator<Entry> iterator = ranking.getValue().get(index).iterator();
+                if (iterator.hasNext()) heads.add(new Head(iterator.next(), iterator));
+            }
+
+            List<Long> ids = new ArrayList<>(limit);
+            while (ids.size() < limit && !heads.isEmpty()) {
+                Head head = heads.poll();
+                ids.add(head.entry.id);
+                if (head.rest.hasNext()) heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> fromDatabase(Map<String, Object> criteria, Collection<Long> ids, String field, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT id, " + field + " FROM ship" + ShipSql.where(criteria, ids, args);
+
+        // the heap keeps the lowest of the best entries on top, so each row costs one comparison or O(log k)
+        PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, RANK.reversed());
+        jdbcTemplate.query(sql, args.toArray(), rs -> {
+            Object value = rs.getObject(2);
+            Entry entry = new Entry(rs.getLong(1), value == null ? Double.NEGATIVE_INFINITY : value instanceof Date
+                    ? ((Date) value).getTime() : ((Number) value).doubleValue());
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (RANK.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        });
+
+        List<Entry> ranked = new ArrayList<>(best);
+        ranked.sort(RANK);
+        List<Long> result = new ArrayList<>(ranked.size());
+        for (Entry entry : ranked) result.add(entry.id);
+        return result;
+    }
+
+    private void removeLocked(Long id) {
+        Entry[] shipEntries = entries.remove(id);
+        if (shipEntries == null) return;
+        for (List<NavigableSet<Entry>> ranking : rankings.values()) {
+            if (ranking.get(0).remove(shipEntries[0])) {
+                for (int i = 1; i < shipEntries.length; i++) ranking.get(i).remove(shipEntries[i]);
+                return;
+            }
+        }
+    }
+
+    private static void add(Map<ShipType, List<NavigableSet<Entry>>> rankings, ShipType shipType, Entry[] shipEntries) {
+        List<NavigableSet<Entry>> ranking = rankings.computeIfAbsent(shipType, key -> {
+            List<NavigableSet<Entry>> sets = new ArrayList<>(FIELDS.size());
+            for (int i = 0; i < FIELDS.size(); i++) sets.add(new TreeSet<>(RANK));
+            return sets;
+        });
+        for (int i = 0; i < shipEntries.length; i++) ranking.get(i).add(shipEntries[i]);
+    }
+
+    // dates are ranked by epoch millis, which doubles hold exactly
+    private static Entry[] entries(Long id, Double speed, Long prodDate, Double rating, Integer crewSize) {
+        return new Entry[]{
+                new Entry(id, id),
+                new Entry(id, speed == null ? Double.NEGATIVE_INFINITY : speed),
+                new Entry(id, prodDate == null ? Double.NEGATIVE_INFINITY : prodDate),
+                new Entry(id, rating == null ? Double.NEGATIVE_INFINITY : rating),
+                new Entry(id, crewSize == null ? Double.NEGATIVE_INFINITY : crewSize)};
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final double value;
+
+        Entry(long id, double value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    private static final class Head {
+        private final Entry entry;
+        private final Iterator<Entry> rest;
+
+        Head(Entry entry, Iterator<Entry> rest) {
+            this.entry = entry;
+            this.rest = rest;
+        }
+    }
+}
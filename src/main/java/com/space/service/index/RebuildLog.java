@@ -0,0 +1,65 @@
+package com.space.service.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps incremental writes from getting lost in a rebuild of an in-memory index. A rebuild reads the table without
+ * holding the index lock, so a write committed during the read may or may not be in what it loaded; the writes that
+ * came in since the read began are therefore replayed on the loaded state before anyone sees it.
+ */
+final class RebuildLog {
+    private final ReadWriteLock lock;
+
+    // writes applied while a rebuild is loading, null when none is
+    private List<Runnable> pending;
+
+    RebuildLog(ReadWriteLock lock) {
+        this.lock = lock;
+    }
+
+    /**
+     * Applies a write under the write lock; the write must act on the index's current state when run.
+     */
+    void write(Runnable write) {
+        lock.writeLock().lock();
+        try {
+            write.run();
+            if (pending != null) pending.add(write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads new state without the lock, then installs it and replays the writes made meanwhile under the write lock.
+     * Rebuilds run one at a time; one that fails to load leaves the current state in place.
+     */
+    synchronized <T> void rebuild(Supplier<T> load, Consumer<T> install) {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        T loaded = null;
+        try {
+            loaded = load.get();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded != null) {
+                    install.accept(loaded);
+                    for (Runnable write : pending) write.run();
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
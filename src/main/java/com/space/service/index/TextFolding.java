@@ -0,0 +1,31 @@
+package com.space.service.index;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text the way the MySQL {@code utf8_general_ci} collation of the ship table compares it: accents dropped
+ * (decomposed, then combining marks removed) and case ignored. For ASCII the collation and the folding agree exactly;
+ * for what is left outside ASCII after folding, such as {@code ß} or {@code æ}, they may not, so callers treat such
+ * text as undecided rather than as a mismatch.
+ */
+final class TextFolding {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private TextFolding() {
+    }
+
+    static String fold(String value) {
+        if (value == null) return null;
+        if (isAscii(value)) return value.toLowerCase(Locale.ROOT);
+        return MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7f) return false;
+        }
+        return true;
+    }
+}
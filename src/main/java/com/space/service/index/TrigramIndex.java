@@ -0,0 +1,178 @@
+package com.space.service.index;
+
+import com.space.event.FleetChangedEvent;
+import com.space.event.ShipDeletedEvent;
+import com.space.event.ShipSavedEvent;
+import com.space.model.Ship;
+import com.space.repository.ShipRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over ship names and planets. It turns the {@code LIKE '%x%'} filters into a set of
+ * candidate ids. Text is folded like the database collation ({@link TextFolding}) and a value the folding cannot decide
+ * is a candidate for every query, so the candidates are a superset of what the database matches, and the {@code LIKE}
+ * predicate still decides the final result.
+ */
+@Component
+public class TrigramIndex {
+    public static final int GRAM = 3;
+
+    private final ShipRepo shipRepo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RebuildLog rebuildLog = new RebuildLog(lock);
+
+    private Grams grams = new Grams();
+
+    @Autowired
+    public TrigramIndex(ShipRepo shipRepo) {
+        this.shipRepo = shipRepo;
+    }
+
+    /**
+     * Returns the ids of ships that may match the {@code name} and {@code planet} filters,
+     * or {@code null} if neither filter can use the index.
+     */
+    public Set<Long> candidates(Map<String, Object> criteria) {
+        String name = indexable((String) criteria.get("name"));
+        String planet = indexable((String) criteria.get("planet"));
+        if (name == null && planet == null) return null;
+
+        lock.readLock().lock();
+        try {
+            Set<Long> byName = name == null ? null : grams.names.select(name);
+            Set<Long> byPlanet = planet == null ? null : grams.planets.select(planet);
+            if (byName == null) return byPlanet;
+            if (byPlanet != null) byName.retainAll(byPlanet);
+            return byName;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Long id, String name, String planet) {
+        String[] entry = {TextFolding.fold(name), TextFolding.fold(planet)};
+        rebuildLog.write(() -> grams.put(id, entry));
+    }
+
+    public void remove(Long id) {
+        rebuildLog.write(() -> grams.remove(id));
+    }
+
+    public void rebuild() {
+        rebuildLog.rebuild(() -> {
+            Grams loaded = new Grams();
+            for (Object[] row : shipRepo.findAllNamesAndPlanets()) {
+                loaded.put((Long) row[0], new String[]{TextFolding.fold((String) row[1]), TextFolding.fold((String) row[2])});
+            }
+            return loaded;
+        }, loaded -> grams = loaded);
+    }
+
+    // after the commit, so the rebuild reads what the bulk write committed and nothing of one that rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipSaved(ShipSavedEvent event) {
+        Ship ship = event.getShip();
+        put(ship.getId(), ship.getName(), ship.getPlanet());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipDeleted(ShipDeletedEvent event) {
+        remove(event.getId());
+    }
+
+    // the folded query, or null when it is too short or the folding cannot decide it
+    private static String indexable(String query) {
+        String folded = TextFolding.fold(query);
+        return folded == null || folded.length() < GRAM || !TextFolding.isAscii(folded) ? null : folded;
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Grams {
+        private final Map<Long, String[]> values = new HashMap<>();
+        private final Postings names = new Postings();
+        private final Postings planets = new Postings();
+
+        void put(Long id, String[] entry) {
+            remove(id);
+            values.put(id, entry);
+            names.add(entry[0], id);
+            planets.add(entry[1], id);
+        }
+
+        void remove(Long id) {
+            String[] entry = values.remove(id);
+            if (entry == null) return;
+            names.discard(entry[0], id);
+            planets.discard(entry[1], id);
+        }
+    }
+
+    /**
+     * Ids by trigram of one column. Values still outside ASCII after folding are kept apart and match every query.
+     */
+    private static final class Postings {
+        private final Map<String, Set<Long>> byGram = new HashMap<>();
+        private final Set<Long> undecided = new HashSet<>();
+
+        Set<Long> select(String query) {
+            List<Set<Long>> postings = new ArrayList<>();
+            for (String gram : grams(query)) {
+                postings.add(byGram.getOrDefault(gram, Collections.emptySet()));
+            }
+            postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            Set<Long> result = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+                result.retainAll(postings.get(i));
+            }
+            result.addAll(undecided);
+            return result;
+        }
+
+        void add(String value, Long id) {
+            if (value == null) return;
+            if (!TextFolding.isAscii(value)) {
+                undecided.add(id);
+                return;
+            }
+            for (String gram : grams(value)) {
+                byGram.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+            }
+        }
+
+        void discard(String value, Long id) {
+            if (value == null) return;
+            if (!TextFolding.isAscii(value)) {
+                undecided.remove(id);
+                return;
+            }
+            for (String gram : grams(value)) {
+                Set<Long> ids = byGram.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) byGram.remove(gram);
+            }
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- optimistic locking counter, bumped by every update of the row
+ALTER TABLE ship ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- categorical filters of GET /rest/ships, narrowed further by the production date range
+CREATE INDEX idx_ship_type_used_date ON ship (shipType, isUsed, prodDate);
+CREATE INDEX idx_ship_used_date ON ship (isUsed, prodDate);
+
+-- range filters and ShipOrder sort columns, with id as the tie-breaker
+CREATE INDEX idx_ship_prod_date_id ON ship (prodDate, id);
+CREATE INDEX idx_ship_speed_id ON ship (speed, id);
+CREATE INDEX idx_ship_rating_id ON ship (rating, id);
+CREATE INDEX idx_ship_crew_size_id ON ship (crewSize, id);
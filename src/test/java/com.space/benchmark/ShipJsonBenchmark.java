@@ -0,0 +1,106 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.space.model.Ship;
+import com.space.model.ShipDeserializer;
+import com.space.model.ShipSerializer;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ship JSON through the reflective field-visibility bean (de)serializers versus {@link ShipSerializer} and
+ * {@link ShipDeserializer}, for a page of ships. Run {@code mvn test-compile} and then this class's main method with
+ * the test classpath; compare the scores and the {@code gc.alloc.rate.norm} lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipJsonBenchmark {
+    private static final TypeReference<List<Ship>> SHIPS = new TypeReference<List<Ship>>() {
+    };
+
+    @Param({"3", "40", "1000"})
+    private int pageSize;
+
+    private ObjectMapper reflective;
+    private ObjectMapper handWritten;
+    private List<Ship> ships;
+    private byte[] json;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws Exception {
+        reflective = mapper();
+        handWritten = mapper().registerModule(new SimpleModule("ship")
+                .addSerializer(Ship.class, new ShipSerializer())
+                .addDeserializer(Ship.class, new ShipDeserializer()));
+
+        Random random = new Random(42);
+        ships = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Ship ship = new Ship("Ship " + i, "Planet " + random.nextInt(50), ShipType.values()[random.nextInt(3)],
+                    new Date(26192246400000L + random.nextInt(1000) * 86400000L), random.nextBoolean(),
+                    Math.round(random.nextDouble() * 100) / 100.0, 1 + random.nextInt(9999), Math.round(random.nextDouble() * 1000) / 100.0);
+            ship.setId((long) i + 1);
+            ships.add(ship);
+        }
+        json = reflective.writeValueAsBytes(ships);
+        out = new ByteArrayOutputStream(json.length * 2);
+    }
+
+    @Benchmark
+    public int writeReflective() throws Exception {
+        out.reset();
+        reflective.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeHandWritten() throws Exception {
+        out.reset();
+        handWritten.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    public List<Ship> readReflective() throws Exception {
+        return reflective.readValue(json, SHIPS);
+    }
+
+    @Benchmark
+    public List<Ship> readHandWritten() throws Exception {
+        return handWritten.readValue(json, SHIPS);
+    }
+
+    // configured like the REST message converter in WebConfig
+    private static ObjectMapper mapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return mapper;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ShipJsonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.AppConfig;
+import com.space.config.WebConfig;
+import com.space.model.ShipEncoding;
+import com.space.model.ShipType;
+import com.space.service.FleetGeneration;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per {@code GET /rest/ships} page: entities serialized by Jackson versus rows streamed from JDBC, both
+ * past the filter result cache, and the page as the cache serves it.
+ * Run {@code mvn test-compile} and then this class's main method with the test classpath;
+ * compare the {@code gc.alloc.rate.norm} lines (bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipListBenchmark {
+
+    @Param({"3", "40"})
+    private int pageSize;
+
+    private AnnotationConfigWebApplicationContext context;
+    private ShipService shipService;
+    private FleetGeneration fleetGeneration;
+    private ObjectMapper mapper;
+    private Map<String, Object> criteria;
+    private Pageable pageable;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+        new ResourceDatabasePopulator(new ClassPathResource("test.sql")).execute(context.getBean("dataSource", DataSource.class));
+
+        shipService = context.getBean(ShipService.class);
+        shipService.reloadFleet();
+        fleetGeneration = context.getBean(FleetGeneration.class);
+        for (HttpMessageConverter<?> converter : context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters()) {
+            if (converter instanceof MappingJackson2HttpMessageConverter)
+                mapper = ((MappingJackson2HttpMessageConverter) converter).getObjectMapper();
+        }
+        criteria = new HashMap<>();
+        criteria.put("shipType", ShipType.MERCHANT);
+        criteria.put("minSpeed", 0.01);
+        pageable = PageRequest.of(0, pageSize, Sort.by("speed", "id"));
+        out = new ByteArrayOutputStream(16 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int entities(Uncached uncached) throws Exception {
+        out.reset();
+        mapper.writeValue(out, shipService.getShips(criteria, pageable));
+        return out.size();
+    }
+
+    @Benchmark
+    public int streamed(Uncached uncached) throws Exception {
+        out.reset();
+        shipService.writeShips(criteria, pageable, ShipEncoding.JSON, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int cached() throws Exception {
+        out.reset();
+        shipService.writeShips(criteria, pageable, ShipEncoding.JSON, out);
+        return out.size();
+    }
+
+    // a write to the merchant ships before every call, so the filter result cache never holds the page
+    @State(Scope.Benchmark)
+    public static class Uncached {
+        @Setup(Level.Invocation)
+        public void invalidate(ShipListBenchmark benchmark) {
+            benchmark.fleetGeneration.advance(ShipType.MERCHANT);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ShipListBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
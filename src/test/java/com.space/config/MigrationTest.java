@@ -0,0 +1,84 @@
+package com.space.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = AppConfig.class)
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class MigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void migrationsAreAppliedInOrderWithChecksums() {
+        MigrationInfo[] applied = flyway.info().applied();
+
+        assertEquals(0, flyway.info().pending().length);
+        assertTrue(applied.length >= 2);
+        for (int i = 0; i < applied.length; i++) {
+            assertEquals(String.valueOf(i + 1), applied[i].getVersion().getVersion());
+            assertEquals(MigrationState.SUCCESS, applied[i].getState());
+            assertNotNull(applied[i].getChecksum());
+        }
+        flyway.validate();
+    }
+
+    @Test
+    public void categoricalFiltersUseTypeUsedDateIndex() {
+        assertPlanUses("IDX_SHIP_TYPE_USED_DATE",
+                "SELECT * FROM ship WHERE shipType = 'MILITARY' AND isUsed = TRUE AND prodDate >= DATE '2900-01-01'");
+    }
+
+    @Test
+    public void isUsedFilterUsesUsedDateIndex() {
+        assertPlanUses("IDX_SHIP_USED_DATE", "SELECT * FROM ship WHERE isUsed = FALSE AND prodDate <= DATE '3010-01-01'");
+    }
+
+    @Test
+    public void ratingSortUsesRatingIdIndex() {
+        assertPlanUses("IDX_SHIP_RATING_ID", "SELECT * FROM ship WHERE rating >= 1.5 ORDER BY rating, id LIMIT 3");
+    }
+
+    @Test
+    public void speedSortUsesSpeedIdIndex() {
+        assertPlanUses("IDX_SHIP_SPEED_ID", "SELECT * FROM ship WHERE speed BETWEEN 0.3 AND 0.8 ORDER BY speed, id LIMIT 3");
+    }
+
+    @Test
+    public void crewSizeRangeUsesCrewSizeIndex() {
+        assertPlanUses("IDX_SHIP_CREW_SIZE_ID", "SELECT * FROM ship WHERE crewSize <= 400");
+    }
+
+    private void assertPlanUses(String index, String query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+        assertTrue("Expected " + index + " in plan: " + plan, plan.contains(index));
+    }
+}
@@ -3,6 +3,7 @@ package com.space.controller;
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
+import com.space.service.ShipService;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +34,8 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
+        // test.sql rewrites the ship table behind the application's back
+        context.getBean(ShipService.class).reloadFleet();
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
     }
 }
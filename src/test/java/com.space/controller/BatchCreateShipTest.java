@@ -0,0 +1,90 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BatchCreateShipTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createShipsEmptyBatchTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void createShipsReportsEveryItemTest() throws Exception {
+        String body = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NO_SPEED_JSON + "," + TestsHelper.IS_USED_TRUE_JSON + ","
+                + TestsHelper.TOO_BIG_CREW_SIZE_JSON + "]";
+
+        JsonNode result = postBatch(body);
+
+        assertEquals(2, result.get("created").asInt());
+        assertEquals(2, result.get("rejected").asInt());
+        assertItem(result.get("items").get(0), 0, "CREATED", 41);
+        assertItem(result.get("items").get(1), 1, "REJECTED", null);
+        assertItem(result.get("items").get(2), 2, "CREATED", 42);
+        assertItem(result.get("items").get(3), 3, "REJECTED", null);
+    }
+
+    //test3
+    @Test
+    public void createdShipsAreVisibleTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/count").param("name", "12345")).andExpect(content().string("0"));
+
+        postBatch("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.IS_USED_TRUE_JSON + "]");
+
+        mockMvc.perform(get("/rest/ships/count").param("name", "12345")).andExpect(content().string("2"));
+        mockMvc.perform(get("/rest/ships/count")).andExpect(content().string("42"));
+        String ship = mockMvc.perform(get("/rest/ships/41"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("123456789", mapper.readTree(ship).get("name").asText());
+    }
+
+    //test4
+    @Test
+    public void createShipsLargerThanOneJdbcBatchTest() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1200; i++) {
+            if (i > 0) body.append(',');
+            body.append(TestsHelper.NORMAL_JSON);
+        }
+        JsonNode result = postBatch(body.append(']').toString());
+
+        assertEquals(1200, result.get("created").asInt());
+        assertItem(result.get("items").get(1199), 1199, "CREATED", 1240);
+        mockMvc.perform(get("/rest/ships/count")).andExpect(content().string("1240"));
+    }
+
+    private JsonNode postBatch(String body) throws Exception {
+        String content = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private static void assertItem(JsonNode item, int index, String status, Integer id) {
+        assertEquals(index, item.get("index").asInt());
+        assertEquals(status, item.get("status").asText());
+        if (id == null) assertEquals(true, item.get("id").isNull());
+        else assertEquals((long) id, item.get("id").asLong());
+    }
+}
@@ -0,0 +1,130 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.model.ShipEncoding;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatsTest extends AbstractTest {
+
+    private static final ShipEncoding[] BINARY = {ShipEncoding.CBOR, ShipEncoding.SMILE};
+
+    private ObjectMapper json = new ObjectMapper();
+
+    //test1
+    @Test
+    public void readsMatchJsonTest() throws Exception {
+        String[] urls = {"/rest/ships?pageSize=40", "/rest/ships?shipType=MILITARY&order=SPEED", "/rest/ships?cursor=&pageSize=5",
+                "/rest/ships/count?isUsed=true", "/rest/ships/page?planet=ar", "/rest/ships/7", "/rest/ships/top?limit=5",
+                "/rest/ships/stats?groupBy=SHIP_TYPE"};
+        for (String url : urls) {
+            JsonNode expected = json.readTree(mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+            for (ShipEncoding encoding : BINARY) {
+                MockHttpServletResponse response = mockMvc.perform(get(url).accept(encoding.getContentType()))
+                        .andExpect(status().isOk()).andReturn().getResponse();
+                MediaType contentType = MediaType.parseMediaType(response.getContentType());
+                assertEquals(url, encoding.getContentType(), contentType.getType() + "/" + contentType.getSubtype());
+                assertEquals(url + " " + encoding, expected, mapper(encoding).readTree(response.getContentAsByteArray()));
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void writesAcceptBinaryBodiesTest() throws Exception {
+        for (ShipEncoding encoding : BINARY) {
+            ObjectMapper binary = mapper(encoding);
+            JsonNode created = binary.readTree(send(post("/rest/ships"), encoding, json.readTree(
+                    "{\"name\":\"Sentinel\",\"planet\":\"Io\",\"shipType\":\"MILITARY\",\"prodDate\":33134677200000" +
+                            ",\"isUsed\":false,\"speed\":0.5,\"crewSize\":12}")));
+            long id = created.get("id").asLong();
+            assertEquals("Sentinel", created.get("name").asText());
+            assertEquals(12, created.get("crewSize").asInt());
+            assertEquals(readJson("/rest/ships/" + id), readBinary("/rest/ships/" + id, encoding));
+
+            JsonNode updated = binary.readTree(send(post("/rest/ships/" + id), encoding, json.readTree("{\"name\":\"Sentinel II\",\"crewSize\":13}")));
+            assertEquals("Sentinel II", updated.get("name").asText());
+            assertEquals(13, updated.get("crewSize").asInt());
+            assertEquals(readJson("/rest/ships/" + id), readBinary("/rest/ships/" + id, encoding));
+
+            JsonNode batch = binary.readTree(send(post("/rest/ships/batch"), encoding, json.readTree(
+                    "[{\"name\":\"Scout\",\"planet\":\"Io\",\"shipType\":\"TRANSPORT\",\"prodDate\":33134677200000,\"speed\":0.3,\"crewSize\":2}," +
+                            "{\"name\":\"\",\"planet\":\"Io\"}]")));
+            assertEquals(json.readTree(mockMvc.perform(post("/rest/ships/batch").contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("[{\"name\":\"\",\"planet\":\"Io\"}]")).andReturn().getResponse().getContentAsString()).get("items").get(0).get("status"),
+                    batch.get("items").get(1).get("status"));
+            assertEquals(1, batch.get("created").asInt());
+        }
+    }
+
+    //test3
+    @Test
+    public void negotiationTest() throws Exception {
+        assertEquals(MediaType.APPLICATION_JSON_UTF8_VALUE, mockMvc.perform(get("/rest/ships")
+                .header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json")).andReturn().getResponse().getContentType());
+        assertEquals("application/x-jackson-smile", mockMvc.perform(get("/rest/ships")
+                .header(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.9")).andReturn().getResponse().getContentType());
+        mockMvc.perform(get("/rest/ships").accept(MediaType.TEXT_PLAIN)).andExpect(status().isNotAcceptable());
+
+        String jsonTag = mockMvc.perform(get("/rest/ships/count")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborTag = mockMvc.perform(get("/rest/ships/count").accept("application/cbor")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonTag, cborTag);
+        mockMvc.perform(get("/rest/ships/count").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/count").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, cborTag))
+                .andExpect(status().isNotModified());
+    }
+
+    //test4
+    @Test
+    public void shipTagsPerEncodingTest() throws Exception {
+        MockHttpServletResponse json = mockMvc.perform(get("/rest/ships/7")).andReturn().getResponse();
+        MockHttpServletResponse cbor = mockMvc.perform(get("/rest/ships/7").accept("application/cbor")).andReturn().getResponse();
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), cbor.getHeader(HttpHeaders.ETAG));
+        assertTrue(json.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        assertTrue(cbor.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+        mockMvc.perform(get("/rest/ships/7").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH, json.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isOk());
+        assertTrue(mockMvc.perform(get("/rest/ships/count").accept("application/cbor").header(HttpHeaders.IF_NONE_MATCH,
+                mockMvc.perform(get("/rest/ships/count").accept("application/cbor")).andReturn().getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified()).andReturn().getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+        mockMvc.perform(post("/rest/ships/7").contentType(ShipEncoding.CBOR.getContentType()).accept(ShipEncoding.CBOR.getContentType())
+                .header(HttpHeaders.IF_MATCH, cbor.getHeader(HttpHeaders.ETAG))
+                .content(mapper(ShipEncoding.CBOR).writeValueAsBytes(this.json.readTree("{\"crewSize\":14}"))))
+                .andExpect(status().isOk());
+    }
+
+    private byte[] send(MockHttpServletRequestBuilder request, ShipEncoding encoding, JsonNode body) throws Exception {
+        return mockMvc.perform(request.contentType(encoding.getContentType()).accept(encoding.getContentType())
+                .content(mapper(encoding).writeValueAsBytes(body)))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private JsonNode readJson(String url) throws Exception {
+        return json.readTree(mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode readBinary(String url, ShipEncoding encoding) throws Exception {
+        return mapper(encoding).readTree(mockMvc.perform(get(url).accept(encoding.getContentType()))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray());
+    }
+
+    private static ObjectMapper mapper(ShipEncoding encoding) {
+        return new ObjectMapper(encoding == ShipEncoding.CBOR ? new CBORFactory() : new SmileFactory());
+    }
+}
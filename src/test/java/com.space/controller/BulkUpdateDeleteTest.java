@@ -0,0 +1,109 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkUpdateDeleteTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void bulkUpdateWithoutFilterTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void bulkUpdateEmptyBodyTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships").param("planet", "Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void bulkUpdateInvalidSpeedTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships").param("planet", "Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 1.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void bulkUpdateRecomputesRatingTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships").param("planet", "Mars").param("shipType", "MERCHANT")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.5}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        assertShip(1, 0.5, 0.8);
+        assertShip(29, 0.5, 1.11);
+        assertShip(2, 0.94, 1.98);
+    }
+
+    //test5
+    @Test
+    public void bulkUpdateUsesPatchedIsUsedTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships").param("planet", "Mars").param("shipType", "MERCHANT").param("isUsed", "true")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\": false}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        assertShip(1, 0.82, 2.62);
+        mockMvc.perform(get("/rest/ships/count").param("planet", "Mars").param("isUsed", "true"))
+                .andExpect(content().string("0"));
+    }
+
+    //test6
+    @Test
+    public void bulkDeleteWithoutFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/count")).andExpect(content().string("40"));
+    }
+
+    //test7
+    @Test
+    public void bulkDeleteTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships").param("planet", "Mars").param("shipType", "MERCHANT"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        mockMvc.perform(get("/rest/ships/count")).andExpect(content().string("37"));
+        mockMvc.perform(get("/rest/ships/1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/ships/count").param("name", "Titan")).andExpect(content().string("0"));
+    }
+
+    //test8
+    @Test
+    public void bulkDeleteNothingMatchesTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships").param("name", "no such ship"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0"));
+    }
+
+    private void assertShip(long id, double speed, double rating) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode ship = mapper.readTree(content);
+        assertEquals(speed, ship.get("speed").asDouble(), 0);
+        assertEquals(rating, ship.get("rating").asDouble(), 0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CategoryIndexTest extends AbstractTest {
+
+    private static final Long[][] RANGES = {
+            {null, null},
+            {millis("2990-01-01"), millis("3010-12-31")},
+            // bounds inside a year: the bitmaps only narrow, the database decides
+            {Timestamp.valueOf("2995-01-01 12:00:00").getTime(), millis("3010-06-01")},
+            {millis("3011-01-01"), null},
+            {null, millis("2999-12-31")},
+            {millis("3010-01-01"), millis("2990-01-01")}};
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void categoricalFiltersMatchTest() throws Exception {
+        ShipType[] shipTypes = {null, ShipType.MERCHANT, ShipType.MILITARY, ShipType.TRANSPORT};
+        Boolean[] isUsedValues = {null, true, false};
+        for (ShipType shipType : shipTypes) {
+            for (Boolean isUsed : isUsedValues) {
+                for (Long[] range : RANGES) {
+                    List<ShipInfoTest> ships = testsHelper.getAllShips();
+                    if (shipType != null) ships = testsHelper.getShipInfosByShipType(shipType, ships);
+                    if (isUsed != null) ships = testsHelper.getShipInfosByIsUsed(isUsed, ships);
+                    if (range[0] != null) ships = testsHelper.getShipInfosByAfter(range[0], ships);
+                    if (range[1] != null) ships = testsHelper.getShipInfosByBefore(range[1], ships);
+                    List<Long> expected = new ArrayList<>();
+                    for (ShipInfoTest ship : ships) expected.add(ship.id);
+
+                    String message = shipType + " " + isUsed + " " + range[0] + ".." + range[1];
+                    assertEquals(message, String.valueOf(expected.size()),
+                            mockMvc.perform(filter("/rest/ships/count", shipType, isUsed, range)).andReturn().getResponse().getContentAsString());
+                    assertEquals(message, expected, ids(filter("/rest/ships", shipType, isUsed, range).param("pageSize", "100")));
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void indexFollowsWritesTest() throws Exception {
+        Long[] year3015 = {millis("3015-01-01"), millis("3015-12-31")};
+        int before = count(ShipType.MILITARY, true, year3015);
+
+        String created = mockMvc.perform(post("/rest/ships").contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Sentinel\",\"planet\":\"Io\",\"shipType\":\"MILITARY\",\"prodDate\":" + millis("3015-07-01") +
+                        ",\"isUsed\":true,\"speed\":0.5,\"crewSize\":12}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(created).get("id").asLong();
+        assertEquals(before + 1, count(ShipType.MILITARY, true, year3015));
+
+        mockMvc.perform(post("/rest/ships/" + id).contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"isUsed\":false}"))
+                .andExpect(status().isOk());
+        assertEquals(before, count(ShipType.MILITARY, true, year3015));
+        assertEquals(2, count(ShipType.MILITARY, false, year3015));
+
+        mockMvc.perform(delete("/rest/ships/" + id)).andExpect(status().isOk());
+        assertEquals(1, count(ShipType.MILITARY, false, year3015));
+    }
+
+    private int count(ShipType shipType, Boolean isUsed, Long[] range) throws Exception {
+        return Integer.parseInt(mockMvc.perform(filter("/rest/ships/count", shipType, isUsed, range))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private List<Long> ids(MockHttpServletRequestBuilder request) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode ship : mapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())) {
+            ids.add(ship.get("id").asLong());
+        }
+        return ids;
+    }
+
+    private static MockHttpServletRequestBuilder filter(String url, ShipType shipType, Boolean isUsed, Long[] range) {
+        MockHttpServletRequestBuilder request = get(url);
+        if (shipType != null) request.param("shipType", shipType.name());
+        if (isUsed != null) request.param("isUsed", isUsed.toString());
+        if (range[0] != null) request.param("after", range[0].toString());
+        if (range[1] != null) request.param("before", range[1].toString());
+        return request;
+    }
+
+    private static long millis(String date) {
+        return Date.valueOf(date).getTime();
+    }
+}
@@ -0,0 +1,98 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void unchangedResultsAreNotModifiedTest() throws Exception {
+        MockHttpServletRequestBuilder[] requests = {
+                get("/rest/ships").param("shipType", "MILITARY"),
+                get("/rest/ships/count").param("isUsed", "true"),
+                get("/rest/ships/page").param("planet", "ar"),
+                get("/rest/ships/5")};
+        for (MockHttpServletRequestBuilder request : requests) {
+            MockHttpServletResponse response = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse();
+            String eTag = response.getHeader(HttpHeaders.ETAG);
+            assertNotNull(eTag);
+
+            MockHttpServletResponse notModified = mockMvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified()).andReturn().getResponse();
+            assertEquals(eTag, notModified.getHeader(HttpHeaders.ETAG));
+            assertEquals("", notModified.getContentAsString());
+        }
+    }
+
+    //test2
+    @Test
+    public void notModifiedSkipsTheQueryTest() throws Exception {
+        String eTag = mockMvc.perform(get("/rest/ships/count").param("shipType", "TRANSPORT"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        JsonNode before = filterCacheMetrics();
+        mockMvc.perform(get("/rest/ships/count").param("shipType", "TRANSPORT").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        JsonNode after = filterCacheMetrics();
+
+        assertEquals(before.get("hits").asLong(), after.get("hits").asLong());
+        assertEquals(before.get("misses").asLong(), after.get("misses").asLong());
+    }
+
+    //test3
+    @Test
+    public void writesChangeTheTagsTest() throws Exception {
+        String military = eTag(get("/rest/ships").param("shipType", "MILITARY"));
+        String merchant = eTag(get("/rest/ships/count").param("shipType", "MERCHANT"));
+        String all = eTag(get("/rest/ships/count"));
+        String ship = eTag(get("/rest/ships/5"));
+
+        String created = mockMvc.perform(post("/rest/ships").contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Sentinel\",\"planet\":\"Io\",\"shipType\":\"MILITARY\",\"prodDate\":33134677200000" +
+                        ",\"isUsed\":false,\"speed\":0.5,\"crewSize\":12}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(get("/rest/ships").param("shipType", "MILITARY").header(HttpHeaders.IF_NONE_MATCH, military))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/count").header(HttpHeaders.IF_NONE_MATCH, all))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/count").param("shipType", "MERCHANT").header(HttpHeaders.IF_NONE_MATCH, merchant))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/rest/ships/5").header(HttpHeaders.IF_NONE_MATCH, ship))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/rest/ships/5").contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"name\":\"Excalibur II\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/5").header(HttpHeaders.IF_NONE_MATCH, ship))
+                .andExpect(status().isOk());
+
+        String afterCreate = eTag(get("/rest/ships/count"));
+        mockMvc.perform(delete("/rest/ships/" + id)).andExpect(status().isOk());
+        assertNotEquals(afterCreate, eTag(get("/rest/ships/count")));
+    }
+
+    private String eTag(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private JsonNode filterCacheMetrics() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/metrics/cache/filters")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,115 @@
+package com.space.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalUpdateTest extends AbstractTest {
+
+    private static final String RENAME = "{\"name\": \"Orion IV\"}";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        super.setup();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    //test1
+    @Test
+    public void getShipReturnsVersionAsETag() throws Exception {
+        mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+    }
+
+    //test2
+    @Test
+    public void updateWithCurrentVersionTest() throws Exception {
+        update(RENAME, "\"0\"")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        update("{\"name\": \"Orion V\"}", "\"0\"").andExpect(status().isPreconditionFailed());
+        assertEquals("Orion IV", row(1).get("name"));
+    }
+
+    //test3
+    @Test
+    public void updateWithAnyVersionTest() throws Exception {
+        update(RENAME, "*").andExpect(status().isOk());
+        update(RENAME, null).andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void updateWithMalformedIfMatchTest() throws Exception {
+        update(RENAME, "W/\"0\"").andExpect(status().isPreconditionFailed());
+        update(RENAME, "zero").andExpect(status().isPreconditionFailed());
+    }
+
+    //test5
+    @Test
+    public void updateWritesOnlyChangedColumnsTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/1")).andExpect(status().isOk());
+        jdbcTemplate.update("UPDATE ship SET crewSize = 999 WHERE id = 1");
+
+        update(RENAME, null).andExpect(status().isOk());
+
+        Map<String, Object> row = row(1);
+        assertEquals("Orion IV", row.get("name"));
+        assertEquals(999, row.get("crewSize"));
+        assertEquals(1L, row.get("version"));
+    }
+
+    //test6
+    @Test
+    public void concurrentWriterIsDetectedTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/1")).andExpect(status().isOk());
+        jdbcTemplate.update("UPDATE ship SET name = 'Orion X', version = version + 1 WHERE id = 1");
+
+        update(RENAME, "\"0\"").andExpect(status().isPreconditionFailed());
+        assertEquals("Orion X", row(1).get("name"));
+
+        mockMvc.perform(get("/rest/ships/1")).andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        jdbcTemplate.update("UPDATE ship SET name = 'Orion Y', version = version + 1 WHERE id = 1");
+
+        update(RENAME, null).andExpect(status().isConflict());
+        assertEquals("Orion Y", row(1).get("name"));
+    }
+
+    //test7
+    @Test
+    public void updateMissingShipTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/410")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .content(RENAME))
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions update(String body, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(body);
+        if (ifMatch != null) request.header(HttpHeaders.IF_MATCH, ifMatch);
+        return mockMvc.perform(request);
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("SELECT name, crewSize, version FROM ship WHERE id = ?", id);
+    }
+}
@@ -0,0 +1,46 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConnectionPoolTest extends AbstractTest {
+
+    // one read per ship: with lazily fetched connections, second-level cache hits never reach the pool
+    private static final int REQUESTS = 40;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void connectionsAreReusedAcrossRequests() throws Exception {
+        JsonNode before = readPoolMetrics();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/rest/ships/" + (i + 1)).accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+        }
+        JsonNode after = readPoolMetrics();
+
+        long acquired = after.get("connectionsAcquired").asLong() - before.get("connectionsAcquired").asLong();
+        long created = after.get("connectionsCreated").asLong() - before.get("connectionsCreated").asLong();
+        assertTrue("Every request must check a connection out of the pool, acquired " + acquired, acquired >= REQUESTS);
+        assertTrue("Requests must reuse pooled connections, created " + created, created <= after.get("max").asLong());
+        assertTrue("Pool must not grow beyond its maximum", after.get("total").asLong() <= after.get("max").asLong());
+        assertEquals(0, after.get("timeouts").asLong());
+        assertEquals(0, after.get("active").asLong());
+    }
+
+    private JsonNode readPoolMetrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/pool").accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
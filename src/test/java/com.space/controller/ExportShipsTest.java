@@ -0,0 +1,97 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportNdjsonTest() throws Exception {
+        MockHttpServletResponse response = export("format", "NDJSON");
+        String[] lines = response.getContentAsString().split("\n", -1);
+
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertEquals(41, lines.length);
+        assertEquals("", lines[40]);
+        for (int i = 0; i < 40; i++) {
+            JsonNode ship = mapper.readTree(lines[i]);
+            assertEquals(i + 1, ship.get("id").asInt());
+            assertEquals(9, ship.size());
+        }
+    }
+
+    //test2
+    @Test
+    public void exportedLineMatchesShipJsonTest() throws Exception {
+        String ship = mockMvc.perform(get("/rest/ships").param("name", "Excalibur"))
+                .andReturn().getResponse().getContentAsString();
+        String line = export("name", "Excalibur").getContentAsString();
+
+        assertEquals(ship.substring(1, ship.length() - 1) + "\n", line);
+    }
+
+    //test3
+    @Test
+    public void exportAppliesFiltersTest() throws Exception {
+        String[] lines = export("planet", "Mars").getContentAsString().split("\n");
+        assertEquals(mockMvc.perform(get("/rest/ships/count").param("planet", "Mars")).andReturn().getResponse().getContentAsString(),
+                String.valueOf(lines.length));
+        for (String line : lines) assertEquals("Mars", mapper.readTree(line).get("planet").asText());
+
+        assertEquals("", export("name", "no such ship").getContentAsString());
+    }
+
+    //test4
+    @Test
+    public void exportCsvTest() throws Exception {
+        MockHttpServletResponse response = export("format", "CSV");
+        String[] lines = response.getContentAsString().split("\r\n");
+
+        assertTrue(response.getContentType().startsWith("text/csv"));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("ships.csv"));
+        assertEquals(41, lines.length);
+        assertEquals("id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines[0]);
+        assertEquals("1,Orion III,Mars,MERCHANT," + lines[1].split(",")[4] + ",true,0.82,617,1.31", lines[1]);
+    }
+
+    //test5
+    @Test
+    public void exportCsvQuotesSpecialCharactersTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Nova, \\\"Prime\\\"\", \"planet\": \"Earth\", \"shipType\": \"MILITARY\", " +
+                        "\"prodDate\": 32998274577071, \"speed\": 0.5, \"crewSize\": 10}"))
+                .andExpect(status().isOk());
+
+        String[] lines = mockMvc.perform(get("/rest/ships/export").param("format", "CSV").param("name", "Nova"))
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[1], lines[1].startsWith("41,\"Nova, \"\"Prime\"\"\",Earth,MILITARY,"));
+    }
+
+    //test6
+    @Test
+    public void exportUnknownFormatTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/export").param("format", "XML")).andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse export(String param, String value) throws Exception {
+        return mockMvc.perform(get("/rest/ships/export").param(param, value))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,106 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FilterResultCacheTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedFiltersHitTheCacheTest() throws Exception {
+        List<Long> first = ids(get("/rest/ships").param("shipType", "MILITARY").param("isUsed", "true"));
+        JsonNode before = metrics();
+        List<Long> second = ids(get("/rest/ships").param("isUsed", "true").param("shipType", "MILITARY"));
+        JsonNode after = metrics();
+
+        assertEquals(first, second);
+        assertEquals(1, after.get("hits").asLong() - before.get("hits").asLong());
+        assertEquals(0, after.get("misses").asLong() - before.get("misses").asLong());
+
+        count(get("/rest/ships/count").param("shipType", "MILITARY"));
+        before = metrics();
+        count(get("/rest/ships/count").param("shipType", "MILITARY"));
+        assertEquals(1, metrics().get("hits").asLong() - before.get("hits").asLong());
+    }
+
+    //test2
+    @Test
+    public void writesInvalidateByShipTypeTest() throws Exception {
+        int military = count(get("/rest/ships/count").param("shipType", "MILITARY"));
+        int all = count(get("/rest/ships/count"));
+
+        String created = mockMvc.perform(post("/rest/ships").contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Sentinel\",\"planet\":\"Io\",\"shipType\":\"MERCHANT\",\"prodDate\":33134677200000" +
+                        ",\"isUsed\":false,\"speed\":0.5,\"crewSize\":12}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(created).get("id").asLong();
+
+        JsonNode before = metrics();
+        assertEquals(military, count(get("/rest/ships/count").param("shipType", "MILITARY")));
+        assertEquals(1, metrics().get("hits").asLong() - before.get("hits").asLong());
+        assertEquals(all + 1, count(get("/rest/ships/count")));
+
+        mockMvc.perform(post("/rest/ships/" + id).contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"shipType\":\"MILITARY\"}"))
+                .andExpect(status().isOk());
+        assertEquals(military + 1, count(get("/rest/ships/count").param("shipType", "MILITARY")));
+        assertTrue(ids(get("/rest/ships").param("shipType", "MILITARY").param("pageSize", "100")).contains(id));
+        assertFalse(ids(get("/rest/ships").param("shipType", "MERCHANT").param("pageSize", "100")).contains(id));
+
+        mockMvc.perform(delete("/rest/ships/" + id)).andExpect(status().isOk());
+        assertEquals(military, count(get("/rest/ships/count").param("shipType", "MILITARY")));
+        assertFalse(ids(get("/rest/ships").param("shipType", "MILITARY").param("pageSize", "100")).contains(id));
+    }
+
+    //test3
+    @Test
+    public void bulkWritesInvalidateEverythingTest() throws Exception {
+        int transport = testsHelper.getShipInfosByShipType(ShipType.TRANSPORT, testsHelper.getAllShips()).size();
+        int military = count(get("/rest/ships/count").param("shipType", "MILITARY"));
+        assertEquals(transport, count(get("/rest/ships/count").param("shipType", "TRANSPORT")));
+
+        int updated = Integer.parseInt(mockMvc.perform(patch("/rest/ships").param("shipType", "TRANSPORT")
+                .contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"shipType\":\"MILITARY\"}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertEquals(transport, updated);
+
+        assertEquals(0, count(get("/rest/ships/count").param("shipType", "TRANSPORT")));
+        assertEquals(military + transport, count(get("/rest/ships/count").param("shipType", "MILITARY")));
+        assertEquals(new ArrayList<Long>(), ids(get("/rest/ships").param("shipType", "TRANSPORT")));
+    }
+
+    private int count(MockHttpServletRequestBuilder request) throws Exception {
+        return Integer.parseInt(mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private List<Long> ids(MockHttpServletRequestBuilder request) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String content = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        for (JsonNode ship : mapper.readTree(content)) ids.add(ship.get("id").asLong());
+        return ids;
+    }
+
+    private JsonNode metrics() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/metrics/cache/filters")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
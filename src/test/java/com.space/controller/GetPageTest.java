@@ -0,0 +1,73 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getPageWithoutFiltersReturnsFirstPageAndTotal() throws Exception {
+        JsonNode page = readPage("/rest/ships/page");
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 3, testsHelper.getAllShips());
+        assertEquals("Unexpected items for GET /rest/ships/page.", expected, items(page));
+        assertEquals("Unexpected total for GET /rest/ships/page.", testsHelper.getAllShips().size(), page.get("total").asInt());
+        assertEquals("Unexpected pageNumber.", 0, page.get("pageNumber").asInt());
+        assertEquals("Unexpected pageSize.", 3, page.get("pageSize").asInt());
+    }
+
+    //test2
+    @Test
+    public void getPageWithFiltersMatchesListAndCount() throws Exception {
+        JsonNode page = readPage("/rest/ships/page?shipType=MILITARY&maxCrewSize=4000&pageNumber=1&pageSize=2&order=SPEED");
+
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByMaxCrewSize(4000,
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()));
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 2,
+                testsHelper.getShipInfosByOrder(ShipOrder.SPEED, filtered));
+
+        assertEquals("Unexpected items for GET /rest/ships/page with filters.", expected, items(page));
+        assertEquals("Unexpected total for GET /rest/ships/page with filters.", filtered.size(), page.get("total").asInt());
+    }
+
+    //test3
+    @Test
+    public void getPageWithoutCountSkipsTotal() throws Exception {
+        JsonNode page = readPage("/rest/ships/page?pageNumber=2&withCount=false");
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(2, 3, testsHelper.getAllShips());
+        assertEquals("Unexpected items for GET /rest/ships/page without count.", expected, items(page));
+        assertTrue("total must be null when withCount=false", page.get("total").isNull());
+    }
+
+    private JsonNode readPage(String url) throws Exception {
+        String content = mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private List<ShipInfoTest> items(JsonNode page) throws Exception {
+        return mapper.readValue(mapper.treeAsTokens(page.get("items")), typeReference);
+    }
+}
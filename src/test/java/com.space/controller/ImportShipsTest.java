@@ -0,0 +1,119 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.ShipFormat;
+import com.space.model.ShipImportResult;
+import com.space.service.ShipImporter;
+import com.space.service.ShipService;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportShipsTest extends AbstractTest {
+
+    private static final String SHIP = "{\"name\": \"Nova %d\", \"planet\": \"Earth\", \"shipType\": \"MILITARY\", " +
+            "\"prodDate\": 32998274577071, \"isUsed\": true, \"speed\": 0.8, \"crewSize\": 14}";
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void importNdjsonTest() throws Exception {
+        String body = String.format(SHIP, 1) + "\n"
+                + "{\"name\": \"Broken\"\n"
+                + "\n"
+                + String.format(SHIP, 2).replace("0.8", "1.8") + "\n"
+                + String.format(SHIP, 3) + "\n"
+                + String.format(SHIP, 4).replace("MILITARY", "SUBMARINE") + "\n";
+
+        JsonNode result = importShips(body, "NDJSON");
+
+        assertEquals(2, result.get("imported").asInt());
+        assertEquals(3, result.get("rejected").asInt());
+        assertError(result.get("errors").get(0), 2, "malformed record");
+        assertError(result.get("errors").get(1), 6, "malformed record: bad shipType");
+        assertError(result.get("errors").get(2), 4, "invalid ship");
+        mockMvc.perform(get("/rest/ships/count").param("name", "Nova")).andExpect(content().string("2"));
+    }
+
+    //test2
+    @Test
+    public void importCsvTest() throws Exception {
+        String body = "name,planet,shipType,prodDate,isUsed,speed,crewSize\r\n"
+                + "\"Nova, \"\"Prime\"\"\",Earth,MILITARY,32998274577071,true,0.8,14\r\n"
+                + "\"Nova\nTwo\",Earth,TRANSPORT,32998274577071,,0.5,100\r\n"
+                + "Nova Old,Earth,TRANSPORT,1000,false,0.5,100\r\n"
+                + "Nova Short,Earth\r\n";
+
+        JsonNode result = importShips(body, "CSV");
+
+        assertEquals(2, result.get("imported").asInt());
+        assertEquals(2, result.get("rejected").asInt());
+        assertError(result.get("errors").get(0), 6, "malformed record: expected 7 fields");
+        assertError(result.get("errors").get(1), 5, "invalid ship");
+        String ship = mockMvc.perform(get("/rest/ships/41")).andReturn().getResponse().getContentAsString();
+        assertEquals("Nova, \"Prime\"", mapper.readTree(ship).get("name").asText());
+        ship = mockMvc.perform(get("/rest/ships/42")).andReturn().getResponse().getContentAsString();
+        assertEquals("Nova\nTwo", mapper.readTree(ship).get("name").asText());
+        assertEquals(false, mapper.readTree(ship).get("isUsed").asBoolean());
+    }
+
+    //test3
+    @Test
+    public void exportCanBeImportedTest() throws Exception {
+        String marsShips = mockMvc.perform(get("/rest/ships/count").param("planet", "Mars").param("minSpeed", "0.1")).andReturn().getResponse().getContentAsString();
+        for (String format : new String[]{"NDJSON", "CSV"}) {
+            String export = mockMvc.perform(get("/rest/ships/export").param("format", format).param("planet", "Mars").param("minSpeed", "0.1"))
+                    .andReturn().getResponse().getContentAsString();
+
+            JsonNode result = importShips(export, format);
+
+            assertEquals(format, 0, result.get("rejected").asInt());
+            assertTrue(result.get("imported").asInt() > 0);
+        }
+        mockMvc.perform(get("/rest/ships/count").param("planet", "Mars").param("minSpeed", "0.1"))
+                // the CSV round also exported the ships the NDJSON round imported
+                .andExpect(content().string(String.valueOf(4 * Integer.parseInt(marsShips))));
+    }
+
+    //test4
+    @Test
+    public void everyChunkIsItsOwnTransactionTest() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5; i++) body.append(String.format(SHIP, i)).append('\n');
+        ShipImporter importer = new ShipImporter(context.getBean(ShipService.class), 2);
+        SessionFactory sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        long transactions = sessionFactory.getStatistics().getSuccessfulTransactionCount();
+
+        ShipImportResult result = importer.importShips(new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), ShipFormat.NDJSON);
+
+        assertEquals(5, result.getImported());
+        assertEquals(3, sessionFactory.getStatistics().getSuccessfulTransactionCount() - transactions);
+    }
+
+    private JsonNode importShips(String body, String format) throws Exception {
+        String content = mockMvc.perform(post("/rest/ships/import").param("format", format)
+                .contentType(MediaType.TEXT_PLAIN)
+                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private static void assertError(JsonNode error, long line, String message) {
+        assertEquals(line, error.get("line").asLong());
+        assertTrue(error.get("message").asText(), error.get("message").asText().startsWith(message));
+    }
+}
@@ -0,0 +1,99 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class KeysetPaginationTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void cursorPagesCoverAllShipsById() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?pageSize=7");
+        assertEquals("Keyset pages by id must return every ship once, in id order.", testsHelper.getAllShips(), actual);
+    }
+
+    //test2
+    @Test
+    public void cursorPagesFollowRatingOrderWithFilters() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?order=RATING&shipType=MERCHANT&pageSize=2");
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                testsHelper.getShipInfosByShipType(ShipType.MERCHANT, testsHelper.getAllShips()));
+
+        assertEquals("Keyset pages by rating must match the filtered, sorted fleet.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void cursorPagesFollowDateOrder() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?order=DATE&pageSize=3");
+        List<ShipInfoTest> expected = testsHelper.getAllShips();
+        expected.sort(Comparator.comparing((ShipInfoTest ship) -> ship.prodDate).thenComparing(ship -> ship.id));
+
+        assertEquals("Keyset pages by production date must match the sorted fleet.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void lastPageHasNoNextCursor() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?cursor=&pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertNull(response.getHeader(ShipController.NEXT_CURSOR_HEADER));
+    }
+
+    //test5
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/ships?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void cursorWithDifferentOrderIsBadRequest() throws Exception {
+        String cursor = mockMvc.perform(get("/rest/ships?cursor=&order=SPEED")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/ships?order=RATING&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<ShipInfoTest> readAllPages(String url) throws Exception {
+        List<ShipInfoTest> ships = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(url + "&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            ships.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(ShipController.NEXT_CURSOR_HEADER);
+        }
+        return ships;
+    }
+}
@@ -0,0 +1,80 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class NameSearchTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void longSubstringsMatchLikeSearch() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPlanet("tur",
+                testsHelper.getShipInfosByName("ter", testsHelper.getAllShips()));
+
+        assertEquals("Indexed name/planet search must match LIKE semantics.", expected,
+                getShips("/rest/ships?name=ter&planet=tur&pageSize=100"));
+        assertEquals("Indexed count must match LIKE semantics.", expected.size(), getCount("/rest/ships/count?name=ter&planet=tur"));
+    }
+
+    //test2
+    @Test
+    public void createdShipIsFoundByName() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("A created ship must be searchable by name.", 1, getCount("/rest/ships/count?name=45678"));
+    }
+
+    //test3
+    @Test
+    public void renamedShipIsFoundByNewNameOnly() throws Exception {
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Quasar Runner\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("A renamed ship must be searchable by its new name.", 1, getCount("/rest/ships/count?name=Quasar"));
+        assertEquals("A renamed ship must not match its old name.", 0, getCount("/rest/ships/count?name=Orion"));
+    }
+
+    //test4
+    @Test
+    public void deletedShipIsNotFound() throws Exception {
+        int before = getCount("/rest/ships/count?name=Daedal");
+        mockMvc.perform(delete("/rest/ships/2")).andExpect(status().isOk());
+
+        assertEquals("A deleted ship must not be found by name.", before - 1, getCount("/rest/ships/count?name=Daedal"));
+    }
+
+    private List<ShipInfoTest> getShips(String url) throws Exception {
+        String content = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+
+    private int getCount(String url) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,95 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.routing.ReadYourWritesInterceptor;
+import org.flywaydb.core.Flyway;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.Cookie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads routed to a replica that has not caught up with the primary: it holds test.sql and none of the writes the
+ * tests make through the application.
+ */
+@TestPropertySource(properties = "db.replica.urls=" + ReplicaLagTest.REPLICA)
+public class ReplicaLagTest extends AbstractTest {
+    static final String REPLICA = "jdbc:h2:mem:cosmoport-lagging-replica;DB_CLOSE_DELAY=-1";
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setupReplica() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA);
+        Flyway.configure().dataSource(replica).locations("classpath:db/migration/h2").load().migrate();
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(replica);
+    }
+
+    //test1
+    @Test
+    public void shipByIdIsCachedFromThePrimaryTest() throws Exception {
+        assertEquals("Icarus I", name(7));
+        mockMvc.perform(post("/rest/ships/7").contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"name\":\"Icarus II\"}"))
+                .andExpect(status().isOk());
+        // as the size-bounded second-level cache may have done, so the next miss reaches the database
+        context.getBean(EntityManagerFactory.class).getCache().evictAll();
+
+        assertEquals("Icarus II", name(7));
+        assertEquals("Icarus II", name(7));
+    }
+
+    //test2
+    @Test
+    public void replicaResultsAreNotCachedTest() throws Exception {
+        mockMvc.perform(post("/rest/ships").contentType(MediaType.APPLICATION_JSON_UTF8).content(
+                "{\"name\":\"Laggard\",\"planet\":\"Io\",\"shipType\":\"MERCHANT\",\"prodDate\":33134677200000,\"speed\":0.5,\"crewSize\":12}"))
+                .andExpect(status().isOk());
+
+        assertEquals("0", count(get("/rest/ships/count?name=Laggard")));
+        assertEquals("1", count(get("/rest/ships/count?name=Laggard").cookie(pinned())));
+        assertEquals(0, mapper.readTree(mockMvc.perform(get("/rest/ships?name=Laggard")).andReturn().getResponse().getContentAsString()).size());
+        assertEquals(1, mapper.readTree(mockMvc.perform(get("/rest/ships?name=Laggard").cookie(pinned()))
+                .andReturn().getResponse().getContentAsString()).size());
+    }
+
+    //test3
+    @Test
+    public void replicaResultsHaveNoETagTest() throws Exception {
+        String tag = mockMvc.perform(get("/rest/ships/count").cookie(pinned())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(tag);
+        assertNull(mockMvc.perform(get("/rest/ships/count")).andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(get("/rest/ships/count").header(HttpHeaders.IF_NONE_MATCH, tag)).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/count").cookie(pinned()).header(HttpHeaders.IF_NONE_MATCH, tag)).andExpect(status().isNotModified());
+    }
+
+    private String count(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    }
+
+    private String name(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/ships/" + id)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("name").asText();
+    }
+
+    // the cookie a write hands out, keeping the client on the primary
+    private static Cookie pinned() {
+        return new Cookie(ReadYourWritesInterceptor.COOKIE, String.valueOf(System.currentTimeMillis() + 60000));
+    }
+}
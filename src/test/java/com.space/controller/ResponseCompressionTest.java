@@ -0,0 +1,123 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.compression.CompressionFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ResponseCompressionTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private MockMvc compressing;
+
+    @Before
+    public void addFilter() {
+        compressing = MockMvcBuilders.webAppContextSetup(context).addFilters(context.getBean(CompressionFilter.class)).build();
+    }
+
+    //test1
+    @Test
+    public void largeResponsesAreGzippedTest() throws Exception {
+        String plain = plain(get("/rest/ships").param("pageSize", "40"));
+        MockHttpServletResponse response = perform(get("/rest/ships").param("pageSize", "40"), "gzip, deflate");
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        assertTrue(response.getContentAsByteArray().length < plain.length());
+        assertEquals(plain, decode(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    //test2
+    @Test
+    public void deflateWhenPreferredTest() throws Exception {
+        String plain = plain(get("/rest/ships/export"));
+        MockHttpServletResponse response = perform(get("/rest/ships/export"), "gzip;q=0.5, deflate");
+
+        assertEquals("deflate", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(plain, decode(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    //test3
+    @Test
+    public void smallOrUnacceptedResponsesAreNotCompressedTest() throws Exception {
+        MockHttpServletResponse count = perform(get("/rest/ships/count"), "gzip");
+        assertNull(count.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("40", count.getContentAsString());
+        assertTrue(count.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+
+        String plain = plain(get("/rest/ships").param("pageSize", "40"));
+        for (String acceptEncoding : new String[]{null, "identity", "gzip;q=0, deflate;q=0", "br"}) {
+            MockHttpServletResponse response = perform(get("/rest/ships").param("pageSize", "40"), acceptEncoding);
+            assertNull(acceptEncoding, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(acceptEncoding, plain, response.getContentAsString());
+        }
+    }
+
+    //test4
+    @Test
+    public void metricsReportBytesSavedTest() throws Exception {
+        JsonNode before = metrics();
+        perform(get("/rest/ships").param("pageSize", "40"), "gzip");
+        perform(get("/rest/ships/count"), "gzip");
+        JsonNode after = metrics();
+
+        assertEquals(1, after.get("compressed").asLong() - before.get("compressed").asLong());
+        assertEquals(1, after.get("uncompressed").asLong() - before.get("uncompressed").asLong());
+        assertTrue(after.get("bytesSaved").asLong() > before.get("bytesSaved").asLong());
+        assertTrue(after.get("ratio").asDouble() < 1);
+    }
+
+    //test5
+    @Test
+    public void compressedBodiesAreTaggedApartTest() throws Exception {
+        String plainTag = mockMvc.perform(get("/rest/ships").param("pageSize", "40")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipTag = perform(get("/rest/ships").param("pageSize", "40"), "gzip").getHeader(HttpHeaders.ETAG);
+        assertEquals(plainTag.substring(0, plainTag.length() - 1) + "-gzip\"", gzipTag);
+
+        MockHttpServletResponse notModified = compressing.perform(get("/rest/ships").param("pageSize", "40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+                .andExpect(status().isNotModified()).andReturn().getResponse();
+        assertEquals(gzipTag, notModified.getHeader(HttpHeaders.ETAG));
+        assertNull(notModified.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request, String acceptEncoding) throws Exception {
+        if (acceptEncoding != null) request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return compressing.perform(request).andExpect(status().isOk()).andReturn().getResponse();
+    }
+
+    private String plain(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode metrics() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/metrics/compression")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static String decode(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return StreamUtils.copyToString(stream, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.AppConfig;
+import com.space.service.FleetGeneration;
+import com.space.service.ShipByIdCache;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SecondLevelCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedReadsHitTheEntityCache() throws Exception {
+        read("/rest/ships/5");
+        long hits = metrics().get(AppConfig.SHIP_REGION).get("hits").asLong();
+
+        // get past the by-id cache in front of the service
+        context.getBean(ShipByIdCache.class).invalidateAll();
+        read("/rest/ships/5");
+        context.getBean(ShipByIdCache.class).invalidateAll();
+        read("/rest/ships/5");
+
+        assertTrue("Repeated reads must be served by the entity cache",
+                metrics().get(AppConfig.SHIP_REGION).get("hits").asLong() >= hits + 2);
+    }
+
+    //test2
+    @Test
+    public void updateInvalidatesCachedShip() throws Exception {
+        assertEquals("Excalibur", read("/rest/ships/5").get("name").asText());
+
+        update("/rest/ships/5", "{\"name\": \"Excalibur II\", \"speed\": 0.5}");
+
+        JsonNode ship = read("/rest/ships/5");
+        assertEquals("Excalibur II", ship.get("name").asText());
+        assertEquals(0.5, ship.get("speed").asDouble(), 0);
+    }
+
+    //test3
+    @Test
+    public void updateInvalidatesCachedFilterQueries() throws Exception {
+        assertEquals(1, read("/rest/ships/count?name=Excalibur").asInt());
+        long hits = metrics().get("queries").get("hits").asLong();
+        // get past the filter result cache in front of the service
+        context.getBean(FleetGeneration.class).advance();
+        assertEquals(1, read("/rest/ships/count?name=Excalibur").asInt());
+        assertTrue("Repeated filter queries must be served by the query cache",
+                metrics().get("queries").get("hits").asLong() > hits);
+
+        update("/rest/ships/5", "{\"name\": \"Galahad\"}");
+
+        assertEquals(0, read("/rest/ships/count?name=Excalibur").asInt());
+        assertEquals("Galahad", read("/rest/ships?name=Galahad").get(0).get("name").asText());
+    }
+
+    //test4
+    @Test
+    public void metricsReportEvictions() throws Exception {
+        assertTrue(metrics().get(AppConfig.SHIP_REGION).has("evictions"));
+    }
+
+    private void update(String url, String body) throws Exception {
+        mockMvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode read(String url) throws Exception {
+        String content = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private JsonNode metrics() throws Exception {
+        return read("/rest/metrics/cache");
+    }
+}
@@ -0,0 +1,103 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.Ship;
+import com.space.service.ShipByIdCache;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipByIdCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedReadsHitTheCacheTest() throws Exception {
+        JsonNode before = metrics();
+        read(7);
+        read(7);
+        read(7);
+        JsonNode after = metrics();
+
+        assertEquals(1, after.get("misses").asLong() - before.get("misses").asLong());
+        assertEquals(2, after.get("hits").asLong() - before.get("hits").asLong());
+        assertTrue(after.get("hitRatio").asDouble() > 0);
+        assertTrue(after.has("evictions"));
+    }
+
+    //test2
+    @Test
+    public void updateAndDeleteInvalidateTest() throws Exception {
+        assertEquals("Icarus I", read(7).get("name").asText());
+        mockMvc.perform(post("/rest/ships/7").contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"name\":\"Icarus II\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Icarus II", read(7).get("name").asText());
+
+        mockMvc.perform(delete("/rest/ships/7")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/7")).andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void concurrentMissesLoadOnceTest() throws Exception {
+        ShipByIdCache cache = context.getBean(ShipByIdCache.class);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Ship>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(1000L, id -> {
+                        loads.incrementAndGet();
+                        sleep();
+                        return new Ship();
+                    });
+                }));
+            }
+            start.countDown();
+            Ship first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Ship> result : results) assertSame(first, result.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JsonNode read(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/ships/" + id)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode metrics() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/metrics/cache/ships")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
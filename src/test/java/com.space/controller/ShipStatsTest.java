@@ -0,0 +1,138 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipStatsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void wholeFleetStatsTest() throws Exception {
+        JsonNode stats = stats();
+        List<JsonNode> ships = ships();
+
+        assertEquals(1, stats.size());
+        JsonNode all = stats.get(0);
+        assertTrue(all.get("key").isNull());
+        assertEquals(40, all.get("count").asLong());
+        assertMetric(all.get("speed"), ships, "speed", 10);
+        assertMetric(all.get("crewSize"), ships, "crewSize", 10);
+        assertMetric(all.get("rating"), ships, "rating", 10);
+    }
+
+    //test2
+    @Test
+    public void groupByShipTypeTest() throws Exception {
+        JsonNode stats = stats("groupBy", "SHIP_TYPE");
+
+        assertEquals(3, stats.size());
+        long total = 0;
+        for (JsonNode group : stats) {
+            String shipType = group.get("key").asText();
+            String count = mockMvc.perform(get("/rest/ships/count").param("shipType", shipType))
+                    .andReturn().getResponse().getContentAsString();
+            assertEquals(count, group.get("count").asText());
+            assertEquals(group.get("count").asLong(), histogramTotal(group.get("speed")));
+            total += group.get("count").asLong();
+        }
+        assertEquals(40, total);
+    }
+
+    //test3
+    @Test
+    public void groupByDecadeTest() throws Exception {
+        JsonNode stats = stats("groupBy", "PROD_DECADE", "buckets", "4");
+        List<JsonNode> ships = ships();
+
+        long total = 0;
+        for (JsonNode group : stats) {
+            int decade = group.get("key").asInt();
+            assertEquals(0, decade % 10);
+            long expected = ships.stream().filter(ship -> year(ship) / 10 * 10 == decade).count();
+            assertEquals(expected, group.get("count").asLong());
+            assertEquals(4, group.get("rating").get("histogram").size());
+            total += expected;
+        }
+        assertEquals(40, total);
+    }
+
+    //test4
+    @Test
+    public void filtersApplyTest() throws Exception {
+        JsonNode stats = stats("planet", "Mars", "isUsed", "false", "groupBy", "IS_USED");
+
+        assertEquals(1, stats.size());
+        assertEquals(false, stats.get(0).get("key").asBoolean());
+        String count = mockMvc.perform(get("/rest/ships/count").param("planet", "Mars").param("isUsed", "false"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(count, stats.get(0).get("count").asText());
+
+        assertEquals(0, stats("name", "no such ship", "groupBy", "PLANET").size());
+        JsonNode empty = stats("name", "no such ship").get(0);
+        assertEquals(0, empty.get("count").asLong());
+        assertTrue(empty.get("speed").get("min").isNull());
+    }
+
+    //test5
+    @Test
+    public void badBucketsTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/stats").param("buckets", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/stats").param("buckets", "101")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/stats").param("groupBy", "NAME")).andExpect(status().isBadRequest());
+    }
+
+    private void assertMetric(JsonNode metric, List<JsonNode> ships, String field, int buckets) {
+        double min = ships.stream().mapToDouble(ship -> ship.get(field).asDouble()).min().getAsDouble();
+        double max = ships.stream().mapToDouble(ship -> ship.get(field).asDouble()).max().getAsDouble();
+        double avg = ships.stream().mapToDouble(ship -> ship.get(field).asDouble()).average().getAsDouble();
+
+        assertEquals(min, metric.get("min").asDouble(), 1e-9);
+        assertEquals(max, metric.get("max").asDouble(), 1e-9);
+        assertEquals(avg, metric.get("avg").asDouble(), 1e-6);
+        JsonNode histogram = metric.get("histogram");
+        assertEquals(buckets, histogram.size());
+        assertEquals(min, histogram.get(0).get("from").asDouble(), 1e-9);
+        assertEquals(max, histogram.get(buckets - 1).get("to").asDouble(), 1e-9);
+        assertEquals(ships.size(), histogramTotal(metric));
+    }
+
+    private long histogramTotal(JsonNode metric) {
+        long total = 0;
+        for (JsonNode bucket : metric.get("histogram")) total += bucket.get("count").asLong();
+        return total;
+    }
+
+    private int year(JsonNode ship) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new Date(ship.get("prodDate").asLong()));
+        return calendar.get(Calendar.YEAR);
+    }
+
+    private List<JsonNode> ships() throws Exception {
+        List<JsonNode> ships = new ArrayList<>();
+        for (String line : mockMvc.perform(get("/rest/ships/export")).andReturn().getResponse().getContentAsString().split("\n")) {
+            ships.add(mapper.readTree(line));
+        }
+        return ships;
+    }
+
+    private JsonNode stats(String... params) throws Exception {
+        MockHttpServletRequestBuilder request = get("/rest/ships/stats");
+        for (int i = 0; i < params.length; i += 2) request.param(params[i], params[i + 1]);
+        return mapper.readTree(mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+}
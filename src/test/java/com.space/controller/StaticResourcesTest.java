@@ -0,0 +1,100 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StaticResourcesTest extends AbstractTest {
+
+    private static final String CSS = "/resources/bootstrap-4.3.1-dist/css/bootstrap.min.css";
+    private static final String VERSIONED_CACHE = "max-age=31536000, public, immutable";
+
+    //test1
+    @Test
+    public void versionedUrlsAreCachedForAYearTest() throws Exception {
+        String versioned = urlProvider().getForLookupPath(CSS);
+        assertNotEquals(CSS, versioned);
+        assertTrue(versioned.matches("/resources/bootstrap-4\\.3\\.1-dist/css/bootstrap\\.min-[0-9a-f]{32}\\.css"));
+
+        MockHttpServletResponse response = mockMvc.perform(get(versioned)).andExpect(status().isOk()).andReturn().getResponse();
+        assertEquals(VERSIONED_CACHE, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(response.getContentAsString().startsWith("/*!"));
+    }
+
+    //test2
+    @Test
+    public void staleVersionIsNotFoundTest() throws Exception {
+        mockMvc.perform(get("/resources/bootstrap-4.3.1-dist/css/bootstrap.min-0123456789abcdef0123456789abcdef.css"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void versionFollowsContentTest() {
+        assertNotEquals(urlProvider().getForLookupPath("/resources/scripts.js").replaceAll(".*-", ""),
+                urlProvider().getForLookupPath("/resources/bootstrap-4.3.1-dist/js/jq.js").replaceAll(".*-", ""));
+    }
+
+    //test4
+    @Test
+    public void plainPathsAreRevalidatedTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(CSS)).andExpect(status().isOk()).andReturn().getResponse();
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(response.getContentAsString().startsWith("/*!"));
+    }
+
+    //test5
+    @Test
+    public void configurationIsNotServedTest() throws Exception {
+        mockMvc.perform(get("/resources/application.properties")).andExpect(status().isNotFound());
+    }
+
+    //test6
+    @Test
+    public void precompressedVariantsAreServedTest() throws Exception {
+        // the build puts the .gz files next to the plain ones in the war; here one is made next to the source file
+        File plain = new File("src/main/webapp/resources/scripts.js");
+        File gzipped = new File(plain.getPath() + ".gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipped))) {
+                Files.copy(plain.toPath(), out);
+            }
+
+            MockHttpServletResponse versioned = mockMvc.perform(get(urlProvider().getForLookupPath("/resources/scripts.js"))
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andExpect(status().isOk()).andReturn().getResponse();
+            assertEquals("gzip", versioned.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertTrue(versioned.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+            assertEquals(VERSIONED_CACHE, versioned.getHeader(HttpHeaders.CACHE_CONTROL));
+            assertArrayEquals(Files.readAllBytes(plain.toPath()),
+                    StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(versioned.getContentAsByteArray()))));
+
+            MockHttpServletResponse plainPath = mockMvc.perform(get("/resources/scripts.js").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                    .andExpect(status().isOk()).andReturn().getResponse();
+            assertEquals("gzip", plainPath.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("no-cache", plainPath.getHeader(HttpHeaders.CACHE_CONTROL));
+        } finally {
+            Files.deleteIfExists(gzipped.toPath());
+        }
+    }
+
+    private ResourceUrlProvider urlProvider() {
+        return context.getBean(ResourceUrlProvider.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipEncoding;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StreamingShipListTest extends AbstractTest {
+
+    private ShipService shipService;
+    private ObjectMapper mapper;
+
+    @Before
+    public void setup() {
+        super.setup();
+        shipService = context.getBean(ShipService.class);
+        for (HttpMessageConverter<?> converter : context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters()) {
+            if (converter instanceof MappingJackson2HttpMessageConverter)
+                mapper = ((MappingJackson2HttpMessageConverter) converter).getObjectMapper();
+        }
+    }
+
+    //test1
+    @Test
+    public void responseMatchesEntitySerialization() throws Exception {
+        byte[] body = mockMvc.perform(get("/rest/ships").param("pageSize", "40").accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(entityJson(new HashMap<>(), PageRequest.of(0, 40, Sort.by("id"))), body);
+    }
+
+    //test2
+    @Test
+    public void everyFilterMatchesEntitySerialization() throws Exception {
+        for (Map<String, Object> criteria : Arrays.asList(
+                criteria("name", "or"), criteria("planet", "Mars"), criteria("name", "zz"),
+                criteria("shipType", ShipType.MERCHANT), criteria("isUsed", true),
+                criteria("after", 32188140000000L), criteria("before", 32503680000000L),
+                criteria("minSpeed", 0.3), criteria("maxSpeed", 0.7),
+                criteria("minCrewSize", 100), criteria("maxCrewSize", 2000),
+                criteria("minRating", 1.0), criteria("maxRating", 3.0))) {
+            for (String sort : Arrays.asList("id", "speed", "prodDate", "rating")) {
+                Pageable pageable = PageRequest.of(1, 4, "id".equals(sort) ? Sort.by(sort) : Sort.by(sort, "id"));
+                assertEquals(criteria + " by " + sort,
+                        new String(entityJson(criteria, pageable), "UTF-8"), new String(streamedJson(criteria, pageable), "UTF-8"));
+            }
+        }
+    }
+
+    //test3
+    @Test
+    public void createdShipsMatchEntitySerialization() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.CORRECT_COMPUTE_RATING_JSON))
+                .andExpect(status().isOk());
+
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
+        Map<String, Object> criteria = criteria("name", "test");
+        assertArrayEquals(entityJson(criteria, pageable), streamedJson(criteria, pageable));
+    }
+
+    private byte[] entityJson(Map<String, Object> criteria, Pageable pageable) throws Exception {
+        return mapper.writeValueAsBytes(shipService.getShips(criteria, pageable));
+    }
+
+    private byte[] streamedJson(Map<String, Object> criteria, Pageable pageable) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        shipService.writeShips(criteria, pageable, ShipEncoding.JSON, out);
+        return out.toByteArray();
+    }
+
+    private static Map<String, Object> criteria(String key, Object value) {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put(key, value);
+        return criteria;
+    }
+}
@@ -0,0 +1,125 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TopShipsTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void topByShipTypeTest() throws Exception {
+        ShipType[] shipTypes = {null, ShipType.MERCHANT, ShipType.MILITARY, ShipType.TRANSPORT};
+        for (ShipOrder order : ShipOrder.values()) {
+            for (ShipType shipType : shipTypes) {
+                for (int limit : new int[]{1, 5, 50}) {
+                    List<ShipInfoTest> ships = testsHelper.getAllShips();
+                    if (shipType != null) ships = testsHelper.getShipInfosByShipType(shipType, ships);
+
+                    MockHttpServletRequestBuilder request = top(order, limit);
+                    if (shipType != null) request.param("shipType", shipType.name());
+                    assertEquals(order + " " + shipType + " " + limit, expected(ships, order, limit), ids(request));
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void topWithOtherFiltersTest() throws Exception {
+        List<ShipInfoTest> militaryOnMars = testsHelper.getShipInfosByPlanet("ar",
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()));
+        assertEquals(expected(militaryOnMars, ShipOrder.RATING, 50),
+                ids(top(ShipOrder.RATING, 50).param("shipType", "MILITARY").param("planet", "ar")));
+
+        List<ShipInfoTest> used = testsHelper.getShipInfosByMinSpeed(0.5,
+                testsHelper.getShipInfosByIsUsed(true, testsHelper.getAllShips()));
+        for (ShipOrder order : ShipOrder.values()) {
+            assertEquals(order.name(), expected(used, order, 4),
+                    ids(top(order, 4).param("isUsed", "true").param("minSpeed", "0.5")));
+        }
+
+        assertEquals(new ArrayList<Long>(), ids(top(ShipOrder.SPEED, 10).param("name", "no such ship")));
+    }
+
+    //test3
+    @Test
+    public void topFollowsWritesTest() throws Exception {
+        String created = mockMvc.perform(post("/rest/ships").contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Sentinel\",\"planet\":\"Io\",\"shipType\":\"TRANSPORT\",\"prodDate\":33134677200000" +
+                        ",\"isUsed\":false,\"speed\":0.98,\"crewSize\":9999}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(created).get("id").asLong();
+        assertEquals(Long.valueOf(id), ids(top(ShipOrder.SPEED, 1).param("shipType", "TRANSPORT")).get(0));
+        assertEquals(Long.valueOf(id), ids(top(ShipOrder.CREW_SIZE, 1)).get(0));
+
+        mockMvc.perform(post("/rest/ships/" + id).contentType(MediaType.APPLICATION_JSON_UTF8).content("{\"speed\":0.2}"))
+                .andExpect(status().isOk());
+        assertEquals(Long.valueOf(13), ids(top(ShipOrder.SPEED, 1).param("shipType", "TRANSPORT")).get(0));
+
+        mockMvc.perform(delete("/rest/ships/" + id)).andExpect(status().isOk());
+        assertEquals(Long.valueOf(19), ids(top(ShipOrder.CREW_SIZE, 1)).get(0));
+    }
+
+    //test4
+    @Test
+    public void badLimitTest() throws Exception {
+        mockMvc.perform(top(ShipOrder.RATING, 0)).andExpect(status().isBadRequest());
+        mockMvc.perform(top(ShipOrder.RATING, 1001)).andExpect(status().isBadRequest());
+    }
+
+    private List<Long> expected(List<ShipInfoTest> ships, ShipOrder order, int limit) {
+        Function<ShipInfoTest, Double> value;
+        switch (order) {
+            case SPEED:
+                value = ship -> ship.speed;
+                break;
+            case DATE:
+                value = ship -> ship.prodDate.doubleValue();
+                break;
+            case RATING:
+                value = ship -> ship.rating;
+                break;
+            case CREW_SIZE:
+                value = ship -> ship.crewSize.doubleValue();
+                break;
+            default:
+                value = ship -> ship.id.doubleValue();
+        }
+        List<ShipInfoTest> sorted = new ArrayList<>(ships);
+        sorted.sort(Comparator.comparing(value).reversed().thenComparing(ship -> ship.id));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, sorted.size()); i++) ids.add(sorted.get(i).id);
+        return ids;
+    }
+
+    private List<Long> ids(MockHttpServletRequestBuilder request) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String content = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        for (JsonNode ship : mapper.readTree(content)) ids.add(ship.get("id").asLong());
+        return ids;
+    }
+
+    private static MockHttpServletRequestBuilder top(ShipOrder order, int limit) {
+        return get("/rest/ships/top").param("order", order.name()).param("limit", String.valueOf(limit));
+    }
+}
@@ -0,0 +1,94 @@
+package com.space.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ShipJsonTest {
+
+    private static final TypeReference<List<Ship>> SHIPS = new TypeReference<List<Ship>>() {
+    };
+
+    private final ObjectMapper reflective = mapper(false);
+    private final ObjectMapper handWritten = mapper(true);
+
+    //test1
+    @Test
+    public void serializedLikeReflectiveJacksonTest() throws Exception {
+        Ship full = new Ship("Orion III", "Mars", ShipType.MERCHANT, new Date(32998274577071L), true, 0.82, 617, 1.31);
+        full.setId(1L);
+        Ship sqlDate = new Ship("Daedalus", "Jupiter", ShipType.MILITARY, java.sql.Date.valueOf("3012-04-01"), false, 0.1, 1, 0.26);
+        sqlDate.setId(Long.MAX_VALUE);
+        Ship timestamp = new Ship("Эпсилон \"Ω\"", "Io\n", ShipType.TRANSPORT, Timestamp.valueOf("2990-01-01 12:30:00"), null, 1e-3, 9999, 12.0);
+        timestamp.setId(3L);
+        Ship empty = new Ship();
+        List<Ship> ships = Arrays.asList(full, sqlDate, timestamp, empty);
+
+        assertEquals(reflective.writeValueAsString(ships), handWritten.writeValueAsString(ships));
+        for (Ship ship : ships) assertEquals(reflective.writeValueAsString(ship), handWritten.writeValueAsString(ship));
+    }
+
+    //test2
+    @Test
+    public void deserializedLikeReflectiveJacksonTest() throws Exception {
+        String[] inputs = {
+                "[{\"id\":7,\"name\":\"Orion\",\"planet\":\"Mars\",\"shipType\":\"MERCHANT\",\"prodDate\":32998274577071," +
+                        "\"isUsed\":true,\"speed\":0.82,\"crewSize\":617,\"rating\":1.31}]",
+                "[{\"speed\":1,\"rating\":2,\"crewSize\":\"12\",\"isUsed\":\"false\",\"prodDate\":\"3012-04-01\",\"version\":5}]",
+                "[{\"id\":null,\"name\":null,\"shipType\":null,\"prodDate\":null,\"isUsed\":null,\"speed\":null,\"crewSize\":null}, {}]",
+                "[{\"name\":12,\"planet\":true,\"speed\":\"0.5\",\"id\":\"3\",\"crewSize\":2.0}]"};
+        for (String input : inputs) {
+            assertEquals(input, reflective.writeValueAsString(reflective.readValue(input, SHIPS)),
+                    handWritten.writeValueAsString(handWritten.readValue(input, SHIPS)));
+        }
+    }
+
+    //test3
+    @Test
+    public void badInputIsRejectedLikeReflectiveJacksonTest() throws Exception {
+        String[] inputs = {
+                "{\"name\":\"Orion\",\"colour\":\"red\"}",
+                "{\"shipType\":\"YACHT\"}",
+                "{\"crewSize\":\"many\"}",
+                "{\"speed\":[1]}",
+                "[1]"};
+        for (String input : inputs) {
+            assertRejected(reflective, input);
+            assertRejected(handWritten, input);
+        }
+    }
+
+    private static void assertRejected(ObjectMapper mapper, String input) throws Exception {
+        try {
+            mapper.readValue(input, Ship.class);
+            fail(input);
+        } catch (JsonMappingException expected) {
+            // rejected
+        }
+    }
+
+    // the mapper of the REST converters, with or without the hand-written ship (de)serializers
+    private static ObjectMapper mapper(boolean withShipModule) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        if (withShipModule) {
+            mapper.registerModule(new SimpleModule("ship")
+                    .addSerializer(Ship.class, new ShipSerializer())
+                    .addDeserializer(Ship.class, new ShipDeserializer()));
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,120 @@
+package com.space.repository;
+
+import com.space.config.AppConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = AppConfig.class)
+@WebAppConfiguration
+public class ShipSpecificationsTest {
+
+    private static final String[] KEYS = {"name", "planet", "shipType", "after", "before", "isUsed",
+            "minSpeed", "maxSpeed", "minCrewSize", "maxCrewSize", "minRating", "maxRating"};
+    private static final String[] COLUMNS = {"name like", "planet like", "shipType=", "prodDate>=", "prodDate<=", "isUsed=",
+            "speed>=", "speed<=", "crewSize>=", "crewSize<=", "rating>=", "rating<="};
+
+    private static final String SELECT = "select ship0_.id as id1_0_, ship0_.crewSize as crewSize2_0_, ship0_.isUsed as isUsed3_0_, " +
+            "ship0_.name as name4_0_, ship0_.planet as planet5_0_, ship0_.prodDate as prodDate6_0_, " +
+            "ship0_.rating as rating7_0_, ship0_.shipType as shipType8_0_, ship0_.speed as speed9_0_, ship0_.version as version10_0_ from Ship ship0_";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void noFiltersProduceNoWhereClause() {
+        assertEquals(SELECT, sql(Collections.emptyMap()));
+    }
+
+    @Test
+    public void categoricalFiltersProduceOnlyTheirPredicates() {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put("shipType", ShipType.MILITARY);
+        criteria.put("isUsed", true);
+
+        assertEquals(SELECT + " where ship0_.shipType=? and ship0_.isUsed=?", sql(criteria));
+    }
+
+    @Test
+    public void rangeFiltersProduceOneSidedPredicates() {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put("name", "or");
+        criteria.put("after", 32188140000000L);
+        criteria.put("minSpeed", 0.3);
+
+        assertEquals(SELECT + " where (ship0_.name like ? escape ?) and ship0_.prodDate>=? and ship0_.speed>=?", sql(criteria));
+    }
+
+    @Test
+    public void everyCombinationHasOneStableShape() {
+        for (int mask = 0; mask < 1 << KEYS.length; mask++) {
+            String first = sql(criteria(mask, 0));
+            String second = sql(criteria(mask, 1));
+            assertEquals("Filter values must not change the SQL shape for mask " + mask, first, second);
+            // each "contains" filter binds its escape character as well
+            assertEquals("Unexpected bind parameter count for mask " + mask,
+                    Integer.bitCount(mask) + Integer.bitCount(mask & 3), first.length() - first.replace("?", "").length());
+            for (int i = 0; i < KEYS.length; i++) {
+                boolean present = (mask & 1 << i) != 0;
+                assertEquals(KEYS[i] + " predicate for mask " + mask, present, first.contains(COLUMNS[i]));
+            }
+            assertFalse(first.contains("between"));
+            assertTrue(first.startsWith(SELECT));
+        }
+    }
+
+    private Map<String, Object> criteria(int mask, int variant) {
+        Object[][] values = {
+                {"or", "Ex"}, {"ur", "Mars"}, {ShipType.MILITARY, ShipType.MERCHANT}, {32188140000000L, 32500000000000L},
+                {32503680000000L, 32800000000000L}, {true, false}, {0.1, 0.3}, {0.9, 0.7}, {1, 100}, {9999, 500}, {0.5, 1.0}, {3.0, 5.0}};
+        Map<String, Object> criteria = new HashMap<>();
+        for (int i = 0; i < KEYS.length; i++) {
+            if ((mask & 1 << i) != 0) criteria.put(KEYS[i], values[i][variant]);
+        }
+        return criteria;
+    }
+
+    // runs the query in a session that records the SQL Hibernate sends
+    private String sql(Map<String, Object> criteria) {
+        List<String> statements = new ArrayList<>();
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (Session session = sessionFactory.withOptions().statementInspector(sql -> {
+            statements.add(sql);
+            return sql;
+        }).openSession()) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+            Root<Ship> root = query.from(Ship.class);
+            Predicate predicate = ShipSpecifications.byCriteria(criteria).toPredicate(root, query, cb);
+            if (predicate != null) query.where(predicate);
+            session.createQuery(query).getResultList();
+        }
+        assertEquals(1, statements.size());
+        return statements.get(0);
+    }
+}
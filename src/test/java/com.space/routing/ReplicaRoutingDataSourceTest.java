@@ -0,0 +1,152 @@
+package com.space.routing;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica0;
+    private HikariDataSource replica1;
+
+    @Before
+    public void setup() {
+        primary = database("primary");
+        replica0 = database("replica-0");
+        replica1 = database("replica-1");
+    }
+
+    @After
+    public void tearDown() {
+        ReadYourWrites.clear();
+        primary.close();
+        replica0.close();
+        replica1.close();
+    }
+
+    //test1
+    @Test
+    public void writesGoToThePrimary() {
+        JdbcTemplate jdbc = jdbc(ReplicaRoutingDataSource.Selection.ROUND_ROBIN, replica0, replica1);
+
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM whoami", String.class));
+        assertEquals("primary", transaction(jdbc, false));
+    }
+
+    //test2
+    @Test
+    public void readOnlyTransactionsRoundRobinOverReplicas() {
+        JdbcTemplate jdbc = jdbc(ReplicaRoutingDataSource.Selection.ROUND_ROBIN, replica0, replica1);
+
+        List<String> servedBy = new ArrayList<>();
+        for (int i = 0; i < 4; i++) servedBy.add(transaction(jdbc, true));
+
+        assertEquals(Arrays.asList("replica-0", "replica-1", "replica-0", "replica-1"), servedBy);
+    }
+
+    //test3
+    @Test
+    public void leastLoadedReplicaIsPreferred() throws Exception {
+        JdbcTemplate jdbc = jdbc(ReplicaRoutingDataSource.Selection.LEAST_LOADED, replica0, replica1);
+
+        try (Connection busy = replica0.getConnection()) {
+            assertNotNull(busy);
+            for (int i = 0; i < 4; i++) assertEquals("replica-1", transaction(jdbc, true));
+        }
+    }
+
+    //test4
+    @Test
+    public void pinnedClientsReadFromThePrimary() {
+        JdbcTemplate jdbc = jdbc(ReplicaRoutingDataSource.Selection.ROUND_ROBIN, replica0, replica1);
+
+        ReadYourWrites.pin();
+        assertEquals("primary", transaction(jdbc, true));
+        ReadYourWrites.clear();
+        assertTrue(transaction(jdbc, true).startsWith("replica"));
+    }
+
+    //test5
+    @Test
+    public void withoutReplicasEverythingGoesToThePrimary() {
+        JdbcTemplate jdbc = jdbc(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertEquals("primary", transaction(jdbc, true));
+    }
+
+    //test6
+    @Test
+    public void writeRequestsPinTheClient() throws Exception {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(5000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/rest/ships"), response, null);
+        assertTrue(ReadYourWrites.isPinned());
+        interceptor.afterCompletion(null, null, null, null);
+        assertFalse(ReadYourWrites.isPinned());
+
+        Cookie cookie = response.getCookie(ReadYourWritesInterceptor.COOKIE);
+        assertNotNull(cookie);
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/rest/ships");
+        read.setCookies(cookie);
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        assertTrue(ReadYourWrites.isPinned());
+    }
+
+    //test7
+    @Test
+    public void expiredPinIsIgnored() {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(5000);
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/rest/ships");
+        read.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE, String.valueOf(System.currentTimeMillis() - 1)));
+
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+
+        assertFalse(ReadYourWrites.isPinned());
+    }
+
+    private JdbcTemplate jdbc(ReplicaRoutingDataSource.Selection selection, DataSource... replicas) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Arrays.asList(replicas), selection);
+        routing.afterPropertiesSet();
+        return new JdbcTemplate(new LazyConnectionDataSourceProxy(routing));
+    }
+
+    private static String transaction(JdbcTemplate jdbc, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(2);
+        HikariDataSource dataSource = new HikariDataSource(config);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,42 @@
+package com.space.service.index;
+
+import com.space.model.ShipType;
+import com.space.repository.ShipRepo;
+import org.junit.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class BitmapIndexTest {
+
+    @Test
+    public void writesDuringRebuildAreKept() {
+        BitmapIndex[] index = new BitmapIndex[1];
+        ShipRepo shipRepo = (ShipRepo) Proxy.newProxyInstance(ShipRepo.class.getClassLoader(), new Class<?>[]{ShipRepo.class},
+                (proxy, method, args) -> {
+                    // the table as read, while a create and a delete commit behind the read
+                    index[0].put(3L, ShipType.MILITARY, true, Date.valueOf("3001-05-05"));
+                    index[0].remove(2L);
+                    return Arrays.asList(new Object[]{1L, ShipType.MILITARY, false, Date.valueOf("3000-01-01")},
+                            new Object[]{2L, ShipType.MILITARY, true, Date.valueOf("3001-01-01")});
+                });
+        index[0] = new BitmapIndex(shipRepo);
+        index[0].rebuild();
+
+        assertEquals((Integer) 2, index[0].count(criteria("shipType", ShipType.MILITARY)));
+        assertEquals((Integer) 1, index[0].count(criteria("isUsed", true)));
+        assertEquals(RoaringBitmap.bitmapOf(3), index[0].candidates(criteria("isUsed", true)));
+    }
+
+    private static Map<String, Object> criteria(String key, Object value) {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put(key, value);
+        return criteria;
+    }
+}
@@ -0,0 +1,235 @@
+package com.space.service.index;
+
+import com.space.config.AppConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Property test: for random fleets, filters, sorts and pages the columnar engine returns exactly what the SQL path
+ * returns, before and after incremental updates.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = AppConfig.class)
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+@Transactional
+public class ColumnarFleetTest {
+
+    private static final String[] NAMES = {"Orion", "orion", "Excalibur", "50% off", "a_b", "Red Dwarf", "Ex", "", "Odyssey"};
+    private static final String[] PARTS = {"or", "Or", "%", "_", "Ex", "xca", "a", "", "Dwarf", "zzz"};
+    private static final String[] SORTS = {"id", "speed", "prodDate", "rating"};
+
+    @Autowired
+    private ShipService shipService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TrigramIndex trigramIndex;
+    @Autowired
+    private BitmapIndex bitmapIndex;
+
+    private final Random random = new Random(16);
+    private ColumnarFleet fleet;
+
+    @Before
+    public void setup() {
+        for (int i = 0; i < 700; i++) {
+            jdbcTemplate.update("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    orNull(pick(NAMES)), orNull(pick(NAMES)), orNull(pick(ShipType.values()).name()),
+                    orNull(java.sql.Date.valueOf(randomDate())), orNull(random.nextBoolean()),
+                    orNull(random.nextInt(100) / 100.0), orNull(1 + random.nextInt(50) * 200), orNull(random.nextInt(400) / 100.0));
+        }
+        // drops cached queries; the indexes rebuild after a commit, which this rolled back test never makes
+        shipService.reloadFleet();
+        rebuildIndexes();
+
+        // a threshold this low splits the scan across the fork/join pool; H2 compares text exactly
+        fleet = new ColumnarFleet(jdbcTemplate, true, false, 128);
+        fleet.rebuild();
+    }
+
+    @Test
+    public void matchesSqlTest() {
+        for (int i = 0; i < 400; i++) {
+            assertSameResult(i);
+        }
+    }
+
+    @Test
+    public void matchesSqlAfterUpdatesTest() {
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList("SELECT id FROM ship", Long.class));
+        for (int i = 0; i < 60; i++) {
+            int op = random.nextInt(3);
+            if (op == 0) {
+                Ship ship = shipService.createNewShip(pick(NAMES) + "x", pick(NAMES) + "y", pick(ShipType.values()),
+                        randomDay(), random.nextBoolean(), 0.1 + random.nextInt(89) / 100.0, 1 + random.nextInt(9999));
+                fleet.put(ship);
+                ids.add(ship.getId());
+            } else if (op == 1) {
+                Long id = ids.get(random.nextInt(ids.size()));
+                Ship ship = shipService.updateShip(id, null, pick(NAMES) + "z", null, null,
+                        randomDay(), random.nextBoolean(), 0.2 + random.nextInt(70) / 100.0, null);
+                fleet.put(ship);
+            } else {
+                Long id = ids.remove(random.nextInt(ids.size()));
+                shipService.deleteShip(id);
+                fleet.remove(id);
+            }
+        }
+        shipService.reloadFleet();
+        rebuildIndexes();
+
+        for (int i = 0; i < 200; i++) {
+            assertSameResult(i);
+        }
+    }
+
+    @Test
+    public void foldsTextLikeTheCollationTest() {
+        ColumnarFleet folding = new ColumnarFleet(jdbcTemplate, true, true, 128);
+        folding.put(ship(1L, "Café Noir", "Mars"));
+        folding.put(ship(2L, "CAFE", "Zürich"));
+
+        assertEquals((Integer) 2, folding.count(criteria("name", "cafe")));
+        assertEquals((Integer) 2, folding.count(criteria("name", "CAFÉ")));
+        assertEquals((Integer) 1, folding.count(criteria("planet", "zurich")));
+
+        // folding leaves ß as it is, so only the database knows whether "strasse" matches
+        folding.put(ship(3L, "Straße", "Io"));
+        assertNull(folding.count(criteria("name", "strasse")));
+        assertNull(folding.find(criteria("name", "cafe"), PageRequest.of(0, 10)));
+        assertEquals((Integer) 1, folding.count(criteria("planet", "zurich")));
+        assertNull(folding.count(criteria("planet", "ß")));
+
+        folding.remove(3L);
+        assertEquals((Integer) 2, folding.count(criteria("name", "cafe")));
+    }
+
+    @Test
+    public void writesDuringRebuildAreKeptTest() {
+        ColumnarFleet[] rebuilt = new ColumnarFleet[1];
+        Ship renamed = ship(shipService.getShips(new HashMap<>(), PageRequest.of(0, 1)).get(0).getId(), "Renamed during rebuild", "Io");
+        Long removed = shipService.getShips(new HashMap<>(), PageRequest.of(1, 1)).get(0).getId();
+        JdbcTemplate racing = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                // two writes commit while the table is being read
+                rebuilt[0].put(renamed);
+                rebuilt[0].remove(removed);
+                super.query(sql, rch);
+            }
+        };
+        rebuilt[0] = new ColumnarFleet(racing, true, false, 128);
+        rebuilt[0].rebuild();
+
+        assertEquals((Integer) 1, rebuilt[0].count(criteria("name", "Renamed during rebuild")));
+        assertEquals((Integer) (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship", Integer.class) - 1),
+                rebuilt[0].count(new HashMap<>()));
+    }
+
+    // over the rows inserted behind the service's back
+    private void rebuildIndexes() {
+        trigramIndex.rebuild();
+        bitmapIndex.rebuild();
+    }
+
+    private void assertSameResult(int run) {
+        Map<String, Object> criteria = randomCriteria();
+        Sort.Direction direction = random.nextBoolean() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String field = pick(SORTS);
+        Sort sort = "id".equals(field) ? Sort.by(direction, field) : Sort.by(direction, field).and(Sort.by("id"));
+        Pageable pageable = PageRequest.of(random.nextInt(4), 1 + random.nextInt(60), sort);
+        String message = "run " + run + ": " + criteria + " " + pageable;
+
+        assertEquals(message, (Integer) shipService.getCount(criteria), fleet.count(criteria));
+        List<Ship> expected = shipService.getShips(criteria, pageable);
+        List<Ship> actual = fleet.find(criteria, pageable);
+        assertEquals(message, describe(expected), describe(actual));
+    }
+
+    private static Map<String, Object> criteria(String key, Object value) {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put(key, value);
+        return criteria;
+    }
+
+    private static Ship ship(Long id, String name, String planet) {
+        Ship ship = new Ship(name, planet, ShipType.MERCHANT, new Date(java.sql.Date.valueOf("3000-01-01").getTime()), false, 0.5, 10, 1.0);
+        ship.setId(id);
+        return ship;
+    }
+
+    private Map<String, Object> randomCriteria() {
+        Map<String, Object> criteria = new HashMap<>();
+        if (random.nextInt(4) == 0) criteria.put("name", pick(PARTS));
+        if (random.nextInt(4) == 0) criteria.put("planet", pick(PARTS));
+        if (random.nextInt(4) == 0) criteria.put("shipType", pick(ShipType.values()));
+        if (random.nextInt(4) == 0) criteria.put("after", java.sql.Date.valueOf(randomDate()).getTime() + random.nextInt(2) * 3_600_000L);
+        if (random.nextInt(4) == 0) criteria.put("before", java.sql.Date.valueOf(randomDate()).getTime());
+        if (random.nextInt(4) == 0) criteria.put("isUsed", random.nextBoolean());
+        if (random.nextInt(4) == 0) criteria.put("minSpeed", random.nextInt(100) / 100.0);
+        if (random.nextInt(4) == 0) criteria.put("maxSpeed", random.nextInt(100) / 100.0);
+        if (random.nextInt(4) == 0) criteria.put("minCrewSize", random.nextInt(10000));
+        if (random.nextInt(4) == 0) criteria.put("maxCrewSize", random.nextInt(10000));
+        if (random.nextInt(4) == 0) criteria.put("minRating", random.nextInt(400) / 100.0);
+        if (random.nextInt(4) == 0) criteria.put("maxRating", random.nextInt(400) / 100.0);
+        return criteria;
+    }
+
+    private List<String> describe(List<Ship> ships) {
+        List<String> rows = new ArrayList<>();
+        for (Ship ship : ships) {
+            Date prodDate = ship.getProdDate();
+            rows.add(ship.getId() + "|" + ship.getName() + "|" + ship.getPlanet() + "|" + ship.getShipType() + "|" +
+                    (prodDate == null ? null : prodDate.getTime()) + "|" + ship.isUsed() + "|" + ship.getSpeed() + "|" +
+                    ship.getCrewSize() + "|" + ship.getRating());
+        }
+        return rows;
+    }
+
+    private LocalDate randomDate() {
+        return LocalDate.of(2800 + random.nextInt(220), 1 + random.nextInt(12), 1 + random.nextInt(28));
+    }
+
+    // the controller hands the service plain dates
+    private Date randomDay() {
+        return new Date(java.sql.Date.valueOf(randomDate()).getTime());
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private <T> T orNull(T value) {
+        return random.nextInt(20) == 0 ? null : value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.space.service.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepo;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LeaderboardTest {
+
+    @Test
+    public void writesDuringRebuildAreKept() {
+        Leaderboard[] leaderboard = new Leaderboard[1];
+        ShipRepo shipRepo = (ShipRepo) Proxy.newProxyInstance(ShipRepo.class.getClassLoader(), new Class<?>[]{ShipRepo.class},
+                (proxy, method, args) -> {
+                    // the table as read, while a create and a delete commit behind the read
+                    Ship created = new Ship("Falcon", "Io", ShipType.MILITARY, Date.valueOf("3010-01-01"), false, 0.9, 5, 7.0);
+                    created.setId(3L);
+                    leaderboard[0].put(created);
+                    leaderboard[0].remove(2L);
+                    return Arrays.asList(new Object[]{1L, ShipType.MILITARY, 0.5, Date.valueOf("3000-01-01"), 2.0, 10},
+                            new Object[]{2L, ShipType.MERCHANT, 0.7, Date.valueOf("3001-01-01"), 3.0, 20});
+                });
+        leaderboard[0] = new Leaderboard(shipRepo, new JdbcTemplate(new DriverManagerDataSource()), 100);
+        leaderboard[0].rebuild();
+
+        assertEquals(Arrays.asList(3L, 1L), leaderboard[0].top(Collections.emptyMap(), null, "speed", 10));
+        assertEquals(Arrays.asList(3L, 1L), leaderboard[0].top(criteria("shipType", ShipType.MILITARY), null, "rating", 10));
+        assertEquals(Collections.emptyList(), leaderboard[0].top(criteria("shipType", ShipType.MERCHANT), null, "rating", 10));
+    }
+
+    private static Map<String, Object> criteria(String key, Object value) {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put(key, value);
+        return criteria;
+    }
+}
@@ -0,0 +1,116 @@
+package com.space.service.index;
+
+import com.space.repository.ShipRepo;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @Before
+    public void setup() {
+        index = new TrigramIndex(null);
+        index.put(1L, "Orion III", "Mars");
+        index.put(2L, "Daedalus", "Jupiter");
+        index.put(3L, "Eagle Transporter", "Earth");
+        index.put(4L, "Orbit Jet", "Venus");
+    }
+
+    @Test
+    public void shortQueriesAreNotIndexed() {
+        assertNull(index.candidates(criteria("name", "Or")));
+        assertNull(index.candidates(Collections.emptyMap()));
+    }
+
+    @Test
+    public void substringMatchesAreCaseInsensitive() {
+        assertEquals(ids(1L), index.candidates(criteria("name", "rio")));
+        assertEquals(ids(3L), index.candidates(criteria("name", "TRANSP")));
+        assertEquals(ids(2L), index.candidates(criteria("planet", "upit")));
+    }
+
+    @Test
+    public void nameAndPlanetCandidatesAreIntersected() {
+        Map<String, Object> criteria = criteria("name", "Eagle");
+        criteria.put("planet", "Ear");
+        assertEquals(ids(3L), index.candidates(criteria));
+
+        criteria.put("planet", "Mars");
+        assertEquals(ids(), index.candidates(criteria));
+    }
+
+    @Test
+    public void unknownTrigramMatchesNothing() {
+        assertEquals(ids(), index.candidates(criteria("name", "xyz")));
+    }
+
+    @Test
+    public void updatesReplaceOldTrigrams() {
+        index.put(1L, "Nostromo", "Saturn");
+
+        assertEquals(ids(), index.candidates(criteria("name", "Orion")));
+        assertEquals(ids(1L), index.candidates(criteria("name", "strom")));
+    }
+
+    @Test
+    public void removedShipsAreNoLongerCandidates() {
+        index.remove(4L);
+
+        assertEquals(ids(), index.candidates(criteria("name", "Orbit")));
+        assertEquals(ids(), index.candidates(criteria("planet", "Venus")));
+    }
+
+    @Test
+    public void accentsAndCaseAreFoldedLikeTheCollation() {
+        index.put(5L, "Café Noir", "Ærø");
+        index.put(6L, "CAFE", "Zürich");
+
+        assertEquals(ids(5L, 6L), index.candidates(criteria("name", "cafe")));
+        assertEquals(ids(5L, 6L), index.candidates(criteria("name", "CAFÉ")));
+        // folding leaves Æ as it is, so the collation decides whether a planet query matches Ærø
+        assertEquals(ids(5L, 6L), index.candidates(criteria("planet", "zurich")));
+        assertEquals(ids(5L), index.candidates(criteria("planet", "aero")));
+        assertNull(index.candidates(criteria("planet", "Ærø")));
+    }
+
+    @Test
+    public void writesDuringRebuildAreKept() {
+        TrigramIndex[] rebuilt = new TrigramIndex[1];
+        ShipRepo shipRepo = (ShipRepo) Proxy.newProxyInstance(ShipRepo.class.getClassLoader(), new Class<?>[]{ShipRepo.class},
+                (proxy, method, args) -> {
+                    // the table as read, while two writes commit behind the read
+                    rebuilt[0].put(2L, "Nostromo", "Saturn");
+                    rebuilt[0].remove(3L);
+                    return Arrays.asList(new Object[]{1L, "Orion III", "Mars"}, new Object[]{2L, "Daedalus", "Jupiter"},
+                            new Object[]{3L, "Eagle Transporter", "Earth"});
+                });
+        rebuilt[0] = new TrigramIndex(shipRepo);
+        rebuilt[0].rebuild();
+
+        assertEquals(ids(1L), rebuilt[0].candidates(criteria("name", "Orion")));
+        assertEquals(ids(2L), rebuilt[0].candidates(criteria("name", "strom")));
+        assertEquals(ids(), rebuilt[0].candidates(criteria("name", "Daedalus")));
+        assertEquals(ids(), rebuilt[0].candidates(criteria("name", "Eagle")));
+    }
+
+    private static Map<String, Object> criteria(String key, String value) {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put(key, value);
+        return criteria;
+    }
+
+    private static HashSet<Long> ids(Long... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}